@@ -0,0 +1,83 @@
+package eve;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import eve.storage.TaskFileGenerator;
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+/**
+ * Measures {@link TaskList} searches, positional access and changes on
+ * generated lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskListBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private List<Task> generated;
+    private TaskList list;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        generated = TaskFileGenerator.tasks(size, 42);
+        list = new TaskList(generated, 0, 0);
+    }
+
+    /** A common word: matches a few percent of the list through the trigram index. */
+    @Benchmark
+    public List<Task> findWord() {
+        return list.find("project");
+    }
+
+    /** A two-letter needle, which is too short for the index and scans the list. */
+    @Benchmark
+    public List<Task> findShort() {
+        return list.find("pr");
+    }
+
+    @Benchmark
+    public Task get() {
+        next = (next * 1_103_515_245 + 12_345) & Integer.MAX_VALUE;
+        return list.get(next % size);
+    }
+
+    /** Appends a task and deletes one from the middle, keeping the size steady. */
+    @Benchmark
+    public Task addAndDelete() {
+        list.add(new Todo("read book"));
+        return list.deleteAt(size / 2);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (Task t : list.asList()) {
+            bh.consume(t);
+        }
+    }
+
+    @Benchmark
+    public TaskList build() {
+        return new TaskList(generated, 0, 0);
+    }
+}
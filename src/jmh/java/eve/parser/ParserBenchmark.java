@@ -0,0 +1,66 @@
+package eve.parser;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eve.storage.TaskFileGenerator;
+
+/**
+ * Measures {@link CommandLine#parse(String)} and the argument parsers for
+ * the commands that carry dates, over a mix of realistic input lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String[] KEYWORDS = {
+        "list", "todo", "deadline", "event", "mark", "unmark", "delete", "find", "upcoming", "bye",
+    };
+    private static final int LINES = 1024;
+
+    private final String[] lines = new String[LINES];
+    private final String[] deadlineArgs = new String[LINES];
+    private final String[] eventArgs = new String[LINES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(19);
+        for (int i = 0; i < LINES; i++) {
+            String desc = TaskFileGenerator.description(rnd);
+            lines[i] = KEYWORDS[rnd.nextInt(KEYWORDS.length)] + " " + desc;
+            deadlineArgs[i] = desc + " /by 2024-" + (1 + rnd.nextInt(12)) + "-" + (1 + rnd.nextInt(28)) + " 1800";
+            eventArgs[i] = desc + " /from 2/" + (1 + rnd.nextInt(12)) + "/2024 1400 /to 2/"
+                    + (1 + rnd.nextInt(12)) + "/2024 1600";
+        }
+    }
+
+    @Benchmark
+    public CommandLine parseCommandLine() {
+        return CommandLine.parse(lines[next++ & (LINES - 1)]);
+    }
+
+    @Benchmark
+    public parser.DeadlineParts parseDeadline() throws EveException {
+        return parser.parseDeadline(deadlineArgs[next++ & (LINES - 1)]);
+    }
+
+    @Benchmark
+    public parser.EventParts parseEvent() throws EveException {
+        return parser.parseEvent(eventArgs[next++ & (LINES - 1)]);
+    }
+}
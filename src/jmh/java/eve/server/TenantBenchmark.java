@@ -0,0 +1,105 @@
+package eve.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eve.storage.TaskFileGenerator;
+
+/**
+ * Simulates many tenants sharing one {@link TenantManager}: each operation
+ * picks a tenant from a Zipf distribution, so a few tenants get most of the
+ * requests while the long tail is loaded from disk now and then, and runs a
+ * command for it (nine in ten are {@code find}, the rest {@code mark}).
+ * <p>
+ * The memory budget decides how many tenants stay loaded; sampled latencies
+ * show the cost of the misses in the tail. The number of loads and evictions
+ * is printed after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class TenantBenchmark {
+    @Param({"10000"})
+    public int tenants;
+
+    @Param({"20"})
+    public int tasksPerTenant;
+
+    /** The Zipf exponent; higher values send more of the requests to the most popular tenants. */
+    @Param({"0.8", "1.1"})
+    public double skew;
+
+    /** The memory budget, in bytes: room for roughly 40, 700 or all of the tenants. */
+    @Param({"1048576", "16777216", "1073741824"})
+    public long memory;
+
+    private Path dir;
+    private TenantManager manager;
+    /** The cumulative probability of each tenant, most popular first. */
+    private double[] cdf;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("eve-jmh-tenants");
+        for (int i = 0; i < tenants; i++) {
+            TaskFileGenerator.write(dir.resolve(name(i) + ".txt"), tasksPerTenant, i);
+        }
+        manager = new TenantManager(dir, Long.MAX_VALUE, memory, System::nanoTime);
+        cdf = new double[tenants];
+        double sum = 0;
+        for (int i = 0; i < tenants; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < tenants; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.printf("%n%d loads, %d evictions, %d tenants loaded (%d KiB estimated)%n",
+                manager.loads(), manager.evictions(), manager.loaded(), manager.bytes() / 1024);
+        manager.shutdown();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String request() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+        String tenant = name(Math.min(tenants - 1, i < 0 ? -i - 1 : i));
+        String command = rnd.nextInt(10) == 0 ? "mark " + (1 + rnd.nextInt(tasksPerTenant)) : "find book";
+        return manager.getResponse(tenant, command);
+    }
+
+    private static String name(int i) {
+        return "t" + i;
+    }
+}
@@ -0,0 +1,80 @@
+package eve.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eve.tasks.Task;
+
+/**
+ * Measures {@link Storage#load()} and a full {@link Storage#save(List)} that
+ * waits until the snapshot is on disk, for generated data files in each
+ * format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StorageBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"TEXT", "BINARY"})
+    public Storage.Format format;
+
+    private Path dir;
+    private Path file;
+    private List<Task> tasks;
+    private Storage saver;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("eve-jmh");
+        file = dir.resolve("eve.txt");
+        TaskFileGenerator.write(file, size, 42);
+        Storage converter = new Storage(file.toString());
+        converter.convert(format);
+        converter.close();
+        tasks = new Storage(file.toString()).load();
+        saver = new Storage(dir.resolve("saved.txt").toString());
+        saver.convert(format);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        saver.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Task> load() {
+        return new Storage(file.toString()).load();
+    }
+
+    @Benchmark
+    public void save() {
+        saver.save(tasks);
+        saver.flush();
+    }
+}
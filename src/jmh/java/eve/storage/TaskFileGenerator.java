@@ -0,0 +1,127 @@
+package eve.storage;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import eve.tasks.Deadline;
+import eve.tasks.Event;
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+/**
+ * Generates realistic task lists and {@code data/eve.txt} files for the
+ * benchmarks.
+ * <p>
+ * About 60% of the tasks are todos, 25% deadlines and 15% events, and about
+ * 40% are done. Descriptions are two to five words from a small vocabulary,
+ * so that searches hit a realistic share of the list. Dates fall within two
+ * years of 2024-01-01, and one in twenty dated tasks keeps an unparsed time
+ * such as {@code "tomorrow"}. The same size and seed always produce the same
+ * list.
+ * <p>
+ * Run with {@code gradlew generateTaskFile -Pcount=100000 -Pout=data/eve.txt}
+ * to write a file for manual testing.
+ */
+public final class TaskFileGenerator {
+    private static final String[] WORDS = {
+        "read", "book", "return", "submit", "project", "report", "meeting", "team", "lecture", "tutorial",
+        "CS2103T", "quiz", "groceries", "buy", "milk", "call", "mum", "dentist", "gym", "run", "pay",
+        "rent", "bills", "email", "prof", "draft", "review", "PR", "fix", "bug", "deploy", "release",
+        "plan", "trip", "visa", "flight", "café", "lunch", "with", "Alex", "write", "notes", "week",
+    };
+    private static final String[] VAGUE = {"tomorrow", "next Mon", "sometime", "4pm", "end of month"};
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int TWO_YEARS_IN_MINUTES = 2 * 365 * 24 * 60;
+
+    private TaskFileGenerator() {
+    }
+
+    /**
+     * Returns a generated task list.
+     *
+     * @param n    the number of tasks
+     * @param seed the random seed
+     * @return the tasks
+     */
+    public static List<Task> tasks(int n, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<Task> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String desc = description(rnd);
+            int kind = rnd.nextInt(100);
+            Task t;
+            if (kind < 60) {
+                t = new Todo(desc);
+            } else if (kind < 85) {
+                t = rnd.nextInt(20) == 0
+                        ? new Deadline(desc, null, VAGUE[rnd.nextInt(VAGUE.length)])
+                        : new Deadline(desc, time(rnd), null);
+            } else if (rnd.nextInt(20) == 0) {
+                t = new Event(desc, null, VAGUE[rnd.nextInt(VAGUE.length)], null, VAGUE[rnd.nextInt(VAGUE.length)]);
+            } else {
+                LocalDateTime from = time(rnd);
+                t = new Event(desc, from, null, from.plusMinutes(30 + 30 * rnd.nextInt(8)), null);
+            }
+            if (rnd.nextInt(10) < 4) {
+                t.markAsDone();
+            }
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes a generated task list as a text snapshot, the format of
+     * {@code data/eve.txt}.
+     *
+     * @param file the file to write
+     * @param n    the number of tasks
+     * @param seed the random seed
+     */
+    public static void write(Path file, int n, long seed) {
+        Storage storage = new Storage(file.toString());
+        storage.save(tasks(n, seed));
+        storage.close();
+    }
+
+    /**
+     * Writes a generated file.
+     *
+     * @param args the number of tasks and the file to write, and optionally the seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: TaskFileGenerator <count> <file> [seed]");
+            return;
+        }
+        int n = Integer.parseInt(args[0]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        write(Path.of(args[1]), n, seed);
+        System.out.println("Wrote " + n + " tasks to " + args[1]);
+    }
+
+    /**
+     * Returns a description built the same way as the generated ones.
+     *
+     * @param rnd the random source
+     * @return the description
+     */
+    public static String description(SplittableRandom rnd) {
+        int words = 2 + rnd.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static LocalDateTime time(SplittableRandom rnd) {
+        return BASE.plusMinutes(rnd.nextInt(TWO_YEARS_IN_MINUTES / 30) * 30L);
+    }
+}
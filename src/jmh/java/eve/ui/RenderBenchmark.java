@@ -0,0 +1,46 @@
+package eve.ui;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eve.storage.TaskFileGenerator;
+import eve.tasks.Task;
+
+/**
+ * Measures rendering the reply to {@code list} for generated lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RenderBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private final ui ui = new ui();
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        tasks = TaskFileGenerator.tasks(size, 42);
+    }
+
+    @Benchmark
+    public String renderList() {
+        return ui.renderList(tasks);
+    }
+}
@@ -0,0 +1,75 @@
+package eve.util;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DateTimeUtil#parseDateTime(String)} and
+ * {@link DateTimeUtil#pretty(LocalDateTime)}, through the caches and without
+ * them, for inputs that cycle through {@code distinct} different dates. With
+ * 16 distinct dates nearly every call hits the cache; with 1M nearly every
+ * call misses it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeBenchmark {
+    private static final String[] FORMATS = {"%d-%02d-%02d", "%3$d/%2$d/%1$d 1800", "%d-%02d-%02dT09:30"};
+    private static final String[] FREE_TEXT = {"tomorrow", "next Mon", "4pm", "end of month"};
+
+    @Param({"16", "1000000"})
+    public int distinct;
+
+    private String[] inputs;
+    private LocalDateTime[] times;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(19);
+        int n = Integer.highestOneBit(distinct);
+        inputs = new String[n];
+        times = new LocalDateTime[n];
+        LocalDateTime base = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < n; i++) {
+            LocalDateTime t = base.plusDays(i % 20_000).plusMinutes(30L * (i / 20_000));
+            times[i] = t;
+            inputs[i] = rnd.nextInt(10) == 0
+                    ? FREE_TEXT[rnd.nextInt(FREE_TEXT.length)] + " " + i
+                    : String.format(FORMATS[rnd.nextInt(FORMATS.length)],
+                            t.getYear(), t.getMonthValue(), t.getDayOfMonth());
+        }
+    }
+
+    @Benchmark
+    public Optional<LocalDateTime> parseCached() {
+        return DateTimeUtil.parseDateTime(inputs[next++ & (inputs.length - 1)]);
+    }
+
+    @Benchmark
+    public Optional<LocalDateTime> parseUncached() {
+        return DateTimeUtil.parseUncached(inputs[next++ & (inputs.length - 1)]);
+    }
+
+    @Benchmark
+    public String prettyCached() {
+        return DateTimeUtil.pretty(times[next++ & (times.length - 1)]);
+    }
+}
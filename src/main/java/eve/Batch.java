@@ -0,0 +1,63 @@
+package eve;
+
+/**
+ * An open batch of commands that are applied in memory only and saved
+ * together when the batch is committed.
+ * <p>
+ * Takes a {@link TaskList#checkpoint() checkpoint} of the task list when the
+ * batch begins, so that a failed batch can be rolled back.
+ */
+final class Batch {
+    private final TaskList tasks;
+    private int commands;
+    private long busyNanos;
+
+    /**
+     * Starts a batch on the current contents of a task list.
+     *
+     * @param list the task list the batch will change
+     */
+    Batch(TaskList list) {
+        this.tasks = list;
+        list.checkpoint();
+    }
+
+    /**
+     * Counts one more command run inside the batch.
+     *
+     * @param nanos the time the command took
+     */
+    void countCommand(long nanos) {
+        commands++;
+        busyNanos += nanos;
+    }
+
+    /**
+     * Returns the number of commands run inside the batch.
+     *
+     * @return the command count
+     */
+    int commands() {
+        return commands;
+    }
+
+    /**
+     * Returns the time spent running the batch's commands, leaving out the
+     * time spent waiting for input between them.
+     *
+     * @return busy nanoseconds
+     */
+    long busyNanos() {
+        return busyNanos;
+    }
+
+    /** Keeps the changes made in the batch. */
+    void commit() {
+        tasks.release();
+    }
+
+    /** Puts the task list and its undo history back as they were when the batch began. */
+    void rollback() {
+        tasks.rollback();
+    }
+}
@@ -0,0 +1,132 @@
+package eve;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import eve.tasks.Deadline;
+import eve.tasks.Task;
+
+/**
+ * Sorted index of the deadlines in a {@link TaskList} that are not yet done,
+ * ordered by due time and then by list order.
+ * <p>
+ * Deadlines whose due time could not be parsed are never indexed.
+ */
+class DeadlineIndex {
+    /** An indexed deadline with its due time and task id. */
+    private static final class Entry {
+        final Deadline task;
+        final LocalDateTime when;
+        final long id;
+
+        Entry(Deadline task, LocalDateTime when, long id) {
+            this.task = task;
+            this.when = when;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry e) -> e.when)
+            .thenComparingLong(e -> e.id);
+
+    /** Every dated deadline in the list, done or not. */
+    private final Map<Task, Entry> entries = new IdentityHashMap<>();
+    /** Deadlines that are not done yet. */
+    private final NavigableSet<Entry> pending = new TreeSet<>(ORDER);
+
+    /**
+     * Indexes a task. Tasks other than dated deadlines are ignored.
+     *
+     * @param t  the task
+     * @param id the stable id of the task in the list, which orders deadlines
+     *           due at the same time
+     */
+    void add(Task t, long id) {
+        if (!(t instanceof Deadline) || ((Deadline) t).getWhen() == null) {
+            return;
+        }
+        Deadline d = (Deadline) t;
+        Entry e = new Entry(d, d.getWhen(), id);
+        entries.put(t, e);
+        if (!t.isDone()) {
+            pending.add(e);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param t the task
+     */
+    void remove(Task t) {
+        Entry e = entries.remove(t);
+        if (e != null) {
+            pending.remove(e);
+        }
+    }
+
+    /**
+     * Replaces an indexed task by a copy that may differ in its done state,
+     * keeping its id.
+     *
+     * @param old the indexed task
+     * @param now the task that takes its place
+     */
+    void replace(Task old, Task now) {
+        Entry e = entries.remove(old);
+        if (e == null) {
+            return;
+        }
+        pending.remove(e);
+        Entry moved = new Entry((Deadline) now, e.when, e.id);
+        entries.put(now, moved);
+        if (!now.isDone()) {
+            pending.add(moved);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} pending deadlines due at or after
+     * {@code from}, soonest first.
+     *
+     * @param from  the earliest due time to include
+     * @param limit the maximum number of deadlines to return
+     * @return the matching deadlines
+     */
+    List<Task> upcoming(LocalDateTime from, int limit) {
+        List<Task> out = new ArrayList<>();
+        for (Entry e : pending.tailSet(probe(from), true)) {
+            if (out.size() >= limit) {
+                break;
+            }
+            out.add(e.task);
+        }
+        return out;
+    }
+
+    /**
+     * Returns all pending deadlines due before {@code end}, soonest first.
+     *
+     * @param end the due time to stop at (exclusive)
+     * @return the matching deadlines
+     */
+    List<Task> dueBefore(LocalDateTime end) {
+        List<Task> out = new ArrayList<>();
+        for (Entry e : pending.headSet(probe(end), false)) {
+            out.add(e.task);
+        }
+        return out;
+    }
+
+    /** Returns a search key that sorts before every entry due at {@code when}. */
+    private static Entry probe(LocalDateTime when) {
+        return new Entry(null, when, Long.MIN_VALUE);
+    }
+}
@@ -1,18 +1,32 @@
 package eve;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import eve.ui.ui;
 import eve.parser.parser;
 import eve.parser.EveException;
-import eve.parser.parser.Command;
+import eve.parser.CommandLine;
+import eve.parser.CommandRegistry;
 import eve.parser.parser.DeadlineParts;
 import eve.parser.parser.EventParts;
+import eve.parser.parser.PageParts;
+import eve.parser.parser.RangeParts;
+import eve.TaskList.Change;
+import eve.server.EveServer;
+import eve.server.TenantManager;
+import eve.storage.FsyncPolicy;
 import eve.storage.Storage;
 import eve.tasks.Task;
 import eve.tasks.Todo;
 import eve.tasks.Deadline;
 import eve.tasks.Event;
+import eve.util.CommandStats;
+import eve.util.CommandStats.Phase;
 
 /**
  * Entry point for the Eve chatbot application.
@@ -24,15 +38,42 @@ import eve.tasks.Event;
  */
 public class Eve {
 
+    /** Relative path to the data file. */
+    private static final String DATA_FILE = "data/eve.txt";
+
+    /** Name under which input with an unknown keyword is timed. */
+    private static final String UNKNOWN_COMMAND = "(unknown)";
+
+    /**
+     * File the latency histograms are written to on exit, from the
+     * {@code eve.statsFile} system property; {@code null} to not write them.
+     */
+    private static final String STATS_FILE = System.getProperty("eve.statsFile");
+
     /** Handles all user input and output. */
     private final ui ui = new ui();
 
     /** Responsible for loading and saving tasks to disk. */
-    private final Storage storage = new Storage("data/eve.txt");
+    private final Storage storage;
 
     /** Encapsulates the in-memory list of tasks. */
     private TaskList tasks;
 
+    /** Maps command keywords to their handlers. */
+    private final CommandRegistry commands = new CommandRegistry();
+
+    /** Set once the {@code bye} command has run. */
+    private boolean exiting;
+
+    /** The open batch, or {@code null} if changes are saved as they are made. */
+    private Batch batch;
+
+    /** Latency histograms of every command run so far. */
+    private final CommandStats stats = new CommandStats();
+
+    /** Times the command being run; commands run on one thread at a time. */
+    private final CommandStats.Timer timer = stats.timer();
+
     /**
      * Constructs a new {@code Eve} chatbot.
      * <p>
@@ -40,193 +81,560 @@ public class Eve {
      * </p>
      */
     public Eve() {
+        this(Path.of(DATA_FILE));
+    }
+
+    /**
+     * Constructs a new {@code Eve} chatbot that keeps its tasks in the given
+     * data file.
+     *
+     * @param dataFile the data file; its journal is kept next to it
+     */
+    public Eve(Path dataFile) {
+        storage = new Storage(dataFile.toString(), Storage.DEFAULT_JOURNAL_LIMIT, fsyncPolicy());
         List<Task> loaded = storage.load();
         tasks = new TaskList(loaded);
+        registerCommands();
+    }
+
+    /**
+     * Registers the handler for every command keyword. Both the console loop
+     * and the GUI dispatch through these handlers.
+     */
+    private void registerCommands() {
+        commands.register("help", args -> ui.renderHelp());
+        commands.register("list", this::list);
+        commands.register("find", args ->
+                ui.renderFindResults(timer.executed(tasks.find(timer.parsed(parser.parseFind(args))))));
+        commands.register("todo", this::addTodo);
+        commands.register("deadline", this::addDeadline);
+        commands.register("event", this::addEvent);
+        commands.register("mark", args ->
+                setDone(timer.parsed(parser.parseTaskIndexes(args, "mark", tasks.size())), true));
+        commands.register("unmark", args ->
+                setDone(timer.parsed(parser.parseTaskIndexes(args, "unmark", tasks.size())), false));
+        commands.register("delete", this::delete);
+        commands.register("upcoming", args -> {
+            int n = timer.parsed(parser.parseUpcoming(args));
+            return ui.renderDeadlines(timer.executed(tasks.upcoming(LocalDateTime.now(), n)));
+        });
+        commands.register("due", args -> {
+            LocalDateTime end = timer.parsed(parser.parseDue(args)).plusDays(1).atStartOfDay();
+            return ui.renderDeadlines(timer.executed(tasks.dueBefore(end)));
+        });
+        commands.register("clashes", args -> {
+            RangeParts r = timer.parsed(parser.parseClashes(args));
+            return ui.renderClashes(timer.executed(tasks.clashes(r.from, r.to)));
+        });
+        commands.register("free", args -> {
+            LocalDateTime day = timer.parsed(parser.parseFree(args)).atStartOfDay();
+            return ui.renderFreeSlots(timer.executed(tasks.freeSlots(day, day.plusDays(1))));
+        });
+        commands.register("undo", args -> undo(false));
+        commands.register("redo", args -> undo(true));
+        commands.register("batch", this::batch);
+        commands.register("stats", args -> ui.renderStats(stats));
+        commands.register("bye", args -> {
+            exiting = true;
+            String saved = batch == null ? "" : commitBatch() + "\n";
+            shutdown();
+            return saved + ui.renderGoodbye();
+        });
     }
 
     /**
      * Starts the main chatbot loop.
      * <p>
-     * Continuously reads user input, parses it into a {@link Command},
-     * executes the command, and updates the task list and storage
-     * accordingly. Terminates when the user enters the {@code bye}
-     * command or when end-of-file (EOF) is reached.
+     * Continuously reads user input and dispatches each line through
+     * {@link #getResponse(String)}, printing the reply. Terminates when the
+     * user enters the {@code bye} command or when end-of-file (EOF) is reached.
      * </p>
      */
     public void run() {
         ui.showWelcome();
-        boolean exit = false;
-        while (!exit) {
+        while (!exiting) {
             String full = ui.readCommand();
             if (full == null) {
                 ui.showError("Goodbye (EOF).");
+                if (batch != null)
+                    ui.show(commitBatch());
+                shutdown();
+                ui.showGoodbye();
                 break;
             } // EOF
-            full = full.trim();
-            if (full.isEmpty())
+            if (full.isBlank())
                 continue;
+            respond(full, true);
+        }
+    }
 
-            Command cmd = parser.parseCommand(full);
-            if (cmd == null) {
-                ui.showUnknown();
-                continue;
+    /**
+     * Handles one line of user input and returns the reply to show. May be
+     * called from several threads; commands run one at a time.
+     *
+     * @param full the line entered by the user
+     * @return the rendered reply
+     */
+    public synchronized String getResponse(String full) {
+        return respond(full, false);
+    }
+
+    /**
+     * Handles one line of user input, optionally prints the reply, and
+     * records how long each phase of the command took.
+     *
+     * @param full  the line entered by the user
+     * @param print whether to print the reply to the console
+     * @return the rendered reply
+     */
+    private String respond(String full, boolean print) {
+        timer.start();
+        CommandLine line = CommandLine.parse(full);
+        String reply = null;
+        if (print && isFullList(line)) {
+            ui.showList(timer.executed(tasks.asList()));
+            if (batch != null)
+                batch.countCommand(timer.elapsed());
+        } else {
+            reply = dispatch(line);
+            if (print)
+                ui.show(reply);
+        }
+        timer.stop(line == null ? null : commands.contains(line.keyword) ? line.keyword : UNKNOWN_COMMAND);
+        return reply;
+    }
+
+    /**
+     * Returns the tasks to show if a line of input asks for the whole list,
+     * so that a caller can show them row by row as they are needed instead of
+     * rendering every task into one reply first.
+     *
+     * @param full the line entered by the user
+     * @return a snapshot of the tasks if the input is a plain {@code list},
+     *         otherwise {@code null}
+     */
+    public synchronized List<Task> fullListing(String full) {
+        CommandLine line = CommandLine.parse(full);
+        if (!isFullList(line))
+            return null;
+        timer.start();
+        List<Task> all = timer.executed(tasks.asList());
+        if (batch != null)
+            batch.countCommand(timer.elapsed());
+        timer.stop(line.keyword);
+        return all;
+    }
+
+    private static boolean isFullList(CommandLine line) {
+        return line != null && line.keyword.equals("list") && line.args.isEmpty();
+    }
+
+    /**
+     * Runs the handler for a split line of input.
+     *
+     * @param line the split line, or {@code null} for blank input
+     * @return the rendered reply
+     */
+    private String dispatch(CommandLine line) {
+        if (line == null)
+            return "Please type a command.";
+        Batch open = batch;
+        try {
+            String reply = commands.dispatch(line);
+            if (reply == null) {
+                timer.failed();
+                return failed(ui.renderUnknown());
             }
+            if (open != null && batch == open)
+                open.countCommand(timer.elapsed());
+            return reply;
+        } catch (EveException e) {
+            timer.failed();
+            return failed(ui.renderError(e.getMessage()));
+        }
+    }
+
+    /**
+     * Rolls back the open batch, if any, after a command failed.
+     *
+     * @param reply the reply describing the failure
+     * @return the reply, noting the rollback if there was one
+     */
+    private String failed(String reply) {
+        if (batch == null)
+            return reply;
+        rollbackBatch();
+        return reply + "\n" + ui.renderWithLines("Batch rolled back: no changes were saved.");
+    }
 
-            String args = parser.args(full);
+    /**
+     * Runs every line of a script inside one batch and saves once at the end.
+     * If any line fails, no change is kept.
+     *
+     * @param lines the commands to run, one per line; blank lines are skipped
+     * @return a summary with the throughput, or the error that stopped the script
+     */
+    public synchronized String runScript(List<String> lines) {
+        if (batch != null)
+            return ui.renderError("Please commit or roll back the open batch first.");
+        batch = new Batch(tasks);
+        int lineNo = 0;
+        for (String line : lines) {
+            lineNo++;
+            CommandLine cmd = CommandLine.parse(line);
+            if (cmd == null)
+                continue;
+            timer.start();
             try {
-                switch (cmd) {
-                    case HELP:
-                        ui.showHelp();
-                        break;
-                    case LIST:
-                        ui.showList(tasks.asList());
-                        break;
-                    case TODO: {
-                        String desc = parser.parseTodoDesc(args);
-                        Task t = tasks.add(new Todo(desc));
-                        storage.save(tasks.asList());
-                        ui.showAdded(t, tasks.size());
-                        break;
-                    }
-                    case DEADLINE: {
-                        DeadlineParts p = parser.parseDeadline(args);
-                        Task t = tasks.add(new Deadline(p.desc, p.when));
-                        storage.save(tasks.asList());
-                        ui.showAdded(t, tasks.size());
-                        break;
-                    }
-                    case FIND: {
-                        String q = parser.parseFind(args);
-                        ui.showFindResults(tasks.find(q));
-                        break;
-                    }
-                    case EVENT: {
-                        EventParts p = parser.parseEvent(args);
-                        Task t = tasks.add(new Event(p.desc, p.from, p.to));
-                        storage.save(tasks.asList());
-                        ui.showAdded(t, tasks.size());
-                        break;
-                    }
-                    case MARK: {
-                        int n = parser.parseIndex(args, true);
-                        if (n < 1 || n > tasks.size()) {
-                            ui.showError("Please provide a valid task number (1-" + tasks.size() + ").");
-                            break;
-                        }
-                        Task t = tasks.setDone(n - 1, true);
-                        storage.save(tasks.asList());
-                        ui.showMarked(t, true);
-                        break;
-                    }
-                    case UNMARK: {
-                        int n = parser.parseIndex(args, false);
-                        if (n < 1 || n > tasks.size()) {
-                            ui.showError("Please provide a valid task number (1-" + tasks.size() + ").");
-                            break;
-                        }
-                        Task t = tasks.setDone(n - 1, false);
-                        storage.save(tasks.asList());
-                        ui.showMarked(t, false);
-                        break;
-                    }
-                    case DELETE: {
-                        int n = parser.parseDeleteIndex(args);
-                        if (n < 1 || n > tasks.size()) {
-                            ui.showError("Please provide a valid task number (1-" + tasks.size() + ").");
-                            break;
-                        }
-                        Task removed = tasks.deleteAt(n - 1);
-                        storage.save(tasks.asList());
-                        ui.showDeleted(removed, tasks.size());
-                        break;
-                    }
-                    case BYE: {
-                        exit = true;
-                        break;
-                    }
-                }
+                if (cmd.keyword.equals("batch"))
+                    throw new EveException("Batch commands cannot be used in a script.");
+                if (commands.dispatch(cmd) == null)
+                    throw new EveException("Unknown command: " + cmd.keyword);
             } catch (EveException e) {
-                ui.showError(e.getMessage());
+                timer.failed();
+                timer.stop(commands.contains(cmd.keyword) ? cmd.keyword : UNKNOWN_COMMAND);
+                rollbackBatch();
+                return ui.renderError("Line " + lineNo + ": " + e.getMessage()
+                        + " Script rolled back: no changes were saved.");
             }
+            batch.countCommand(timer.elapsed());
+            timer.stop(cmd.keyword);
+        }
+        return commitBatch();
+    }
+
+    /**
+     * Handles {@code batch begin}, {@code batch commit} and {@code batch rollback}.
+     */
+    private String batch(String args) throws EveException {
+        switch (args.toLowerCase()) {
+            case "begin":
+                if (batch != null)
+                    throw new EveException("A batch is already open.");
+                batch = new Batch(tasks);
+                return ui.renderWithLines("Batch started. Changes will be saved at \"batch commit\".");
+            case "commit":
+                if (batch == null)
+                    throw new EveException("No batch is open. Start one with \"batch begin\".");
+                return commitBatch();
+            case "rollback":
+                if (batch == null)
+                    throw new EveException("No batch is open. Start one with \"batch begin\".");
+                rollbackBatch();
+                return ui.renderWithLines("Batch rolled back: no changes were saved.");
+            default:
+                throw new EveException("Usage: batch begin | batch commit | batch rollback");
+        }
+    }
+
+    /**
+     * Saves the whole list once, waits until it is on disk and closes the
+     * batch. The throughput counts the time spent in the batch's commands and
+     * in saving, not the time spent waiting for input.
+     */
+    private String commitBatch() {
+        int n = batch.commands();
+        timer.lap(Phase.EXECUTE);
+        long start = System.nanoTime();
+        storage.save(tasks.asList());
+        boolean saved = storage.flush();
+        timer.lap(Phase.PERSIST);
+        long nanos = batch.busyNanos() + System.nanoTime() - start;
+        batch.commit();
+        batch = null;
+        if (!saved) return ui.renderWithLines("Batch applied, but saving it failed; your changes may be lost on exit.");
+        double perSecond = n * 1e9 / Math.max(1, nanos);
+        return ui.renderWithLines(String.format("Batch committed: %d %s in %.1f ms (%.0f commands/s).",
+                n, n == 1 ? "command" : "commands", nanos / 1e6, perSecond));
+    }
+
+    /** Restores the tasks as they were when the batch began and closes the batch. */
+    private void rollbackBatch() {
+        batch.rollback();
+        batch = null;
+    }
+
+    /**
+     * Ends the execute phase of the current command and runs a storage
+     * write, timed as the persist phase, unless a batch is open.
+     */
+    private void persist(Runnable write) {
+        timer.lap(Phase.EXECUTE);
+        if (batch != null)
+            return;
+        write.run();
+        timer.lap(Phase.PERSIST);
+    }
+
+    /** Persists an added task, unless a batch is open. */
+    private void persistAdded(Task t) {
+        persist(() -> storage.saveAdded(t, tasks.asList()));
+    }
+
+    /** Persists a done flag change, unless a batch is open. */
+    private void persistDone(int idx0, boolean done) {
+        persist(() -> storage.saveDone(idx0, done, tasks.asList()));
+    }
+
+    /** Saves the whole list after a bulk change, unless a batch is open. */
+    private void persistAll() {
+        persist(() -> storage.save(tasks.asList()));
+    }
+
+    /**
+     * Persists what an undo or redo did, unless a batch is open. A change to
+     * one task is journaled like the matching command; larger changes save
+     * the whole list.
+     */
+    private void persistChange(Change c) {
+        persist(() -> saveChange(c));
+    }
+
+    private void saveChange(Change c) {
+        if (c.tasks.size() != 1) {
+            storage.save(tasks.asList());
+            return;
+        }
+        int idx0 = c.positions[0];
+        Task t = c.tasks.get(0);
+        switch (c.effect) {
+            case INSERTED:
+                storage.saveInserted(idx0, t, tasks.asList());
+                break;
+            case REMOVED:
+                storage.saveDeleted(idx0, tasks.asList());
+                break;
+            default:
+                storage.saveDone(idx0, t.isDone(), tasks.asList());
+                break;
+        }
+    }
+
+    /** Persists a deletion, unless a batch is open. */
+    private void persistDeleted(int idx0) {
+        persist(() -> storage.saveDeleted(idx0, tasks.asList()));
+    }
+
+    private String list(String args) throws EveException {
+        PageParts p = timer.parsed(parser.parseList(args));
+        List<Task> all = timer.executed(tasks.asList());
+        if (p == null)
+            return ui.renderList(all);
+        long pages = Math.max(1, (all.size() + (long) p.size - 1) / p.size);
+        if (p.page > pages)
+            throw new EveException("There " + (pages == 1 ? "is only 1 page" : "are only " + pages + " pages")
+                    + " of " + p.size + " tasks.");
+        return ui.renderListPage(all, p.page, p.size);
+    }
+
+    private String addTodo(String args) throws EveException {
+        String desc = timer.parsed(parser.parseTodoDesc(args));
+        Task t = tasks.add(new Todo(desc));
+        persistAdded(t);
+        return ui.renderAdded(t, tasks.size());
+    }
+
+    private String addDeadline(String args) throws EveException {
+        DeadlineParts p = timer.parsed(parser.parseDeadline(args));
+        Task t = tasks.add(new Deadline(p.desc, p.whenDT, p.when));
+        persistAdded(t);
+        return ui.renderAdded(t, tasks.size());
+    }
+
+    private String addEvent(String args) throws EveException {
+        EventParts p = timer.parsed(parser.parseEvent(args));
+        Event e = new Event(p.desc, p.fromDT, p.from, p.toDT, p.to);
+        List<Task> clashes = clashesWith(e);
+        Task t = tasks.add(e);
+        persistAdded(t);
+        String added = ui.renderAdded(t, tasks.size());
+        return clashes.isEmpty() ? added : added + "\n" + ui.renderClashWarning(clashes);
+    }
+
+    private String setDone(int[] idx0s, boolean done) {
+        if (idx0s.length == 1) {
+            Task t = tasks.setDone(idx0s[0], done);
+            persistDone(idx0s[0], done);
+            return ui.renderMarked(t, done);
+        }
+        List<Task> changed = tasks.setDoneAll(idx0s, done);
+        persistAll();
+        return ui.renderMarkedAll(changed, done);
+    }
+
+    private String undo(boolean redo) throws EveException {
+        Change c = redo ? tasks.redo() : tasks.undo();
+        if (c == null)
+            throw new EveException(redo ? "Nothing to redo." : "Nothing to undo.");
+        persistChange(c);
+        return ui.renderUndo(c, redo);
+    }
+
+    private String delete(String args) throws EveException {
+        int[] idx0s = timer.parsed(parser.parseTaskIndexes(args, "delete", tasks.size()));
+        if (idx0s.length == 1) {
+            Task removed = tasks.deleteAt(idx0s[0]);
+            persistDeleted(idx0s[0]);
+            return ui.renderDeleted(removed, tasks.size());
+        }
+        List<Task> removed = tasks.deleteAll(idx0s);
+        persistAll();
+        return ui.renderDeletedAll(removed, tasks.size());
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return the task count
+     */
+    public synchronized int taskCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Returns the existing events that overlap a new event, or an empty list
+     * if its start or end could not be parsed.
+     *
+     * @param e the event about to be added
+     * @return the overlapping events, ordered by start time
+     */
+    private List<Task> clashesWith(Event e) {
+        if (e.getFromDT() == null || e.getToDT() == null) {
+            return List.of();
+        }
+        return tasks.clashes(e.getFromDT(), e.getToDT());
+    }
+
+    /**
+     * Commits an open batch, flushes all pending writes to disk and stops
+     * the background writer. If the {@code eve.statsFile} system property
+     * names a file, also writes the command latency histograms to it. Safe to
+     * call more than once.
+     */
+    public synchronized void shutdown() {
+        if (batch != null)
+            commitBatch();
+        storage.close();
+        if (STATS_FILE == null)
+            return;
+        try {
+            stats.writeTo(Path.of(STATS_FILE));
+        } catch (IOException | RuntimeException e) {
+            ui.showWarning("could not write command stats to " + STATS_FILE + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the fsync policy named by the {@code eve.fsync} system property
+     * ({@code always}, {@code every <N>ms} or {@code on-exit}), defaulting to
+     * once per second.
+     *
+     * @return the policy for the background writer
+     */
+    private FsyncPolicy fsyncPolicy() {
+        try {
+            return FsyncPolicy.parse(System.getProperty("eve.fsync", "every 1000ms"));
+        } catch (IllegalArgumentException e) {
+            ui.showWarning(e.getMessage());
+            return FsyncPolicy.every(1000);
         }
-        ui.showGoodbye();
     }
 
     /**
      * Application entry point.
+     * <p>
+     * With {@code --convert text|binary}, converts the data file to the given
+     * format and exits instead of starting the chatbot. With
+     * {@code --script <file>}, runs the commands in the file as one batch and
+     * exits. With {@code --serve <port>}, serves commands over HTTP on the
+     * loopback interface, with a separate task list per tenant, until the
+     * process is stopped.
      *
-     * @param args command-line arguments (not used)
+     * @param args command-line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--convert")) {
+            convert(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--script")) {
+            script(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(args);
+            return;
+        }
         new Eve().run();
     }
 
-    public String getResponse(String full) {
-        if (full == null)
-            return "Please type a command.";
-        full = full.trim();
-        if (full.isEmpty())
-            return "Please type a command.";
-        Command cmd = parser.parseCommand(full);
-        if (cmd == null)
-            return "Sorry, I don't know that command. Type `help` for a list.";
+    /**
+     * Converts the data file between the text and binary formats.
+     *
+     * @param args command-line arguments, {@code --convert <text|binary>}
+     */
+    private static void convert(String[] args) {
+        Storage.Format target;
+        try {
+            target = Storage.Format.valueOf(args.length > 1 ? args[1].toUpperCase() : "");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Usage: --convert <text|binary>");
+            return;
+        }
+        Storage s = new Storage(DATA_FILE, Storage.DEFAULT_JOURNAL_LIMIT, FsyncPolicy.ALWAYS);
+        int n = s.convert(target);
+        s.close();
+        System.out.println("Converted " + n + (n == 1 ? " task" : " tasks") + " in " + DATA_FILE
+                + " to " + target.name().toLowerCase() + ".");
+    }
 
-        String args = parser.args(full);
+    /**
+     * Runs a file of commands as one batch.
+     *
+     * @param args command-line arguments, {@code --script <file>}
+     */
+    private static void script(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: --script <file>");
+            return;
+        }
+        List<String> lines;
         try {
-            switch (cmd) {
-                case HELP:
-                    return ui.renderHelp();
-                case LIST:
-                    return ui.renderList(tasks.asList());
-                case TODO: {
-                    String desc = parser.parseTodoDesc(args);
-                    Task t = tasks.add(new Todo(desc));
-                    storage.save(tasks.asList());
-                    return ui.renderAdded(t, tasks.size());
-                }
-                case DEADLINE: {
-                    DeadlineParts p = parser.parseDeadline(args);
-                    Task t = tasks.add(new Deadline(p.desc, p.when));
-                    storage.save(tasks.asList());
-                    return ui.renderAdded(t, tasks.size());
-                }
-                case EVENT: {
-                    EventParts p = parser.parseEvent(args);
-                    Task t = tasks.add(new Event(p.desc, p.from, p.to));
-                    storage.save(tasks.asList());
-                    return ui.renderAdded(t, tasks.size());
-                }
-                case MARK: {
-                    int n = parser.parseIndex(args, true);
-                    if (n < 1 || n > tasks.size())
-                        return "Please provide a valid task number (1-" + tasks.size() + ").";
-                    Task t = tasks.setDone(n - 1, true);
-                    storage.save(tasks.asList());
-                    return ui.renderMarked(t, true);
-                }
-                case UNMARK: {
-                    int n = parser.parseIndex(args, false);
-                    if (n < 1 || n > tasks.size())
-                        return "Please provide a valid task number (1-" + tasks.size() + ").";
-                    Task t = tasks.setDone(n - 1, false);
-                    storage.save(tasks.asList());
-                    return ui.renderMarked(t, false);
-                }
-                case DELETE: {
-                    int n = parser.parseDeleteIndex(args);
-                    if (n < 1 || n > tasks.size())
-                        return "Please provide a valid task number (1-" + tasks.size() + ").";
-                    Task removed = tasks.deleteAt(n - 1);
-                    storage.save(tasks.asList());
-                    return ui.renderDeleted(removed, tasks.size());
-                }
-                case BYE:
-                    return "Bye. Hope to see you again soon!";
-                default:
-                    return "Sorry, I don't know that command.";
-            }
-        } catch (EveException e) {
-            return e.getMessage();
+            lines = Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Could not read " + args[1] + ": " + e.getMessage());
+            return;
+        }
+        Eve eve = new Eve();
+        System.out.println(eve.runScript(lines));
+        eve.shutdown();
+    }
+
+    /**
+     * Serves commands over HTTP until the process is stopped.
+     *
+     * @param args command-line arguments, {@code --serve <port>}
+     */
+    private static void serve(String[] args) {
+        int port;
+        try {
+            port = Integer.parseInt(args.length > 1 ? args[1] : "");
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: --serve <port>");
+            return;
+        }
+        TenantManager tenants = new TenantManager(Path.of(DATA_FILE).getParent());
+        EveServer server;
+        try {
+            server = new EveServer(tenants, port, EveServer.DEFAULT_THREADS);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Could not listen on port " + port + ": " + e.getMessage());
+            return;
         }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        tenants.startSweeper();
+        server.start();
+        System.out.println("Eve is serving on http://localhost:" + server.port() + "/command"
+                + " and /tenants/<tenant>/command");
     }
 }
@@ -0,0 +1,212 @@
+package eve;
+
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import eve.tasks.Event;
+import eve.tasks.Task;
+
+/**
+ * Interval tree of the events in a {@link TaskList}, used to find events that
+ * overlap a time range.
+ * <p>
+ * This is an AVL tree ordered by start time and then list order, where every
+ * node also records the latest end time in its subtree so that whole subtrees
+ * ending before a query can be skipped. Ranges are half-open: an event ending
+ * at 16:00 does not overlap one starting at 16:00. Events whose start or end
+ * could not be parsed are never indexed.
+ */
+class EventIntervalTree {
+    private static final class Node {
+        Event task;
+        final LocalDateTime from;
+        final LocalDateTime to;
+        final long id;
+        LocalDateTime max;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Event task, long id) {
+            this.task = task;
+            this.from = task.getFromDT();
+            this.to = task.getToDT();
+            this.id = id;
+            this.max = to;
+        }
+    }
+
+    private final Map<Task, Node> nodes = new IdentityHashMap<>();
+    private Node root;
+
+    /**
+     * Indexes a task. Tasks other than events with a parsed start and end are
+     * ignored.
+     *
+     * @param t  the task
+     * @param id the stable id of the task in the list, which orders events
+     *           starting at the same time
+     */
+    void add(Task t, long id) {
+        if (!(t instanceof Event)) {
+            return;
+        }
+        Event e = (Event) t;
+        if (e.getFromDT() == null || e.getToDT() == null) {
+            return;
+        }
+        Node n = new Node(e, id);
+        nodes.put(t, n);
+        root = insert(root, n);
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param t the task
+     */
+    void remove(Task t) {
+        Node n = nodes.remove(t);
+        if (n != null) {
+            root = delete(root, n);
+        }
+    }
+
+    /**
+     * Replaces an indexed task by a copy with the same times, keeping its id.
+     *
+     * @param old the indexed task
+     * @param now the task that takes its place
+     */
+    void replace(Task old, Task now) {
+        Node n = nodes.remove(old);
+        if (n != null) {
+            n.task = (Event) now;
+            nodes.put(now, n);
+        }
+    }
+
+    /**
+     * Adds the indexed events overlapping {@code [from, to)} to {@code out},
+     * ordered by start time.
+     *
+     * @param from start of the range (inclusive)
+     * @param to   end of the range (exclusive)
+     * @param out  the list to add the events to
+     */
+    void overlapping(LocalDateTime from, LocalDateTime to, List<Task> out) {
+        collect(root, from, to, out);
+    }
+
+    private static void collect(Node n, LocalDateTime from, LocalDateTime to, List<Task> out) {
+        if (n == null || !n.max.isAfter(from)) {
+            return;
+        }
+        collect(n.left, from, to, out);
+        if (!n.from.isBefore(to)) {
+            return;
+        }
+        if (n.to.isAfter(from)) {
+            out.add(n.task);
+        }
+        collect(n.right, from, to, out);
+    }
+
+    private static int compare(Node a, Node b) {
+        int c = a.from.compareTo(b.from);
+        return c != 0 ? c : Long.compare(a.id, b.id);
+    }
+
+    private static Node insert(Node at, Node n) {
+        if (at == null) {
+            return n;
+        }
+        if (compare(n, at) < 0) {
+            at.left = insert(at.left, n);
+        } else {
+            at.right = insert(at.right, n);
+        }
+        return balance(at);
+    }
+
+    private static Node delete(Node at, Node n) {
+        if (at == null) {
+            return null;
+        }
+        int c = compare(n, at);
+        if (c < 0) {
+            at.left = delete(at.left, n);
+        } else if (c > 0) {
+            at.right = delete(at.right, n);
+        } else {
+            if (at.left == null) {
+                return at.right;
+            }
+            if (at.right == null) {
+                return at.left;
+            }
+            Node next = at.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            next.right = delete(at.right, next);
+            next.left = at.left;
+            return balance(next);
+        }
+        return balance(at);
+    }
+
+    private static int height(Node n) {
+        return n == null ? 0 : n.height;
+    }
+
+    private static void update(Node n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+        LocalDateTime max = n.to;
+        if (n.left != null && n.left.max.isAfter(max)) {
+            max = n.left.max;
+        }
+        if (n.right != null && n.right.max.isAfter(max)) {
+            max = n.right.max;
+        }
+        n.max = max;
+    }
+
+    private static Node balance(Node n) {
+        update(n);
+        int diff = height(n.left) - height(n.right);
+        if (diff > 1) {
+            if (height(n.left.left) < height(n.left.right)) {
+                n.left = rotateLeft(n.left);
+            }
+            return rotateRight(n);
+        }
+        if (diff < -1) {
+            if (height(n.right.right) < height(n.right.left)) {
+                n.right = rotateRight(n.right);
+            }
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    private static Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private static Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+}
@@ -1,26 +1,82 @@
 package eve;
 
+import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
 
+import eve.tasks.Event;
 import eve.tasks.Task;
 
 /**
  * Represents the in-memory list of {@link Task} objects managed by Eve.
  * <p>
- * Provides a thin wrapper around an {@link ArrayList} of tasks with
- * convenience methods for adding, deleting, retrieving, and marking tasks.
+ * Provides convenience methods for adding, deleting, retrieving, and marking
+ * tasks. Every task gets a stable id when it joins the list, which stays the
+ * same while other tasks are deleted around it. The tasks are kept in a
+ * {@link TaskTree} ordered by id, so positional access, deletion and id
+ * lookups take {@code O(log n)} time; commands still show 1-based positions.
+ * Descriptions are kept in a {@link TrigramIndex} so that {@link #find(String)}
+ * does not have to scan the whole list, pending deadlines are kept in a
+ * {@link DeadlineIndex} sorted by due time, and events are kept in an
+ * {@link EventIntervalTree} for overlap queries.
+ * </p>
+ * <p>
+ * Every change is recorded in an {@link UndoHistory}, so it can be undone and
+ * redone with {@link #undo()} and {@link #redo()}. A {@link #checkpoint()}
+ * remembers the list and its history, and {@link #rollback()} returns to it.
+ * </p>
+ * <p>
+ * A task list is safe to use from several threads. Changes are serialized by
+ * a {@link StampedLock} and publish a new immutable {@link TaskTree}, so
+ * {@link #size()}, {@link #get(int)} and {@link #asList()} never lock and
+ * always see a consistent list. Queries that go through the mutable indexes
+ * take the shared read lock, which only waits for a change in progress.
+ * Tasks in the list are never changed: marking one replaces it with a copy,
+ * so a snapshot keeps the done states it was taken with.
  * </p>
  */
 public class TaskList {
-    /** Underlying list storing the tasks. */
-    private final List<Task> tasks;
+    /** The tasks in list order, keyed by stable id; replaced on every change. */
+    private volatile TaskTree tasks = TaskTree.EMPTY;
+    /** Serializes changes, and guards the indexes below. */
+    private final StampedLock lock = new StampedLock();
+    /** Id given to the next task added. */
+    private long nextId = 1;
+    /** Changes that can be undone or redone. */
+    private final UndoHistory history;
+    /** Trigram index over the descriptions of {@link #tasks}. */
+    private final TrigramIndex index = new TrigramIndex();
+    /** Pending deadlines of {@link #tasks}, sorted by due time. */
+    private final DeadlineIndex deadlines = new DeadlineIndex();
+    /** Events of {@link #tasks}, indexed by time range. */
+    private final EventIntervalTree events = new EventIntervalTree();
+    /** The state {@link #rollback()} returns to, or {@code null} if there is none. */
+    private Checkpoint checkpoint;
+
+    /** A saved state of the list, with the edits applied since it was taken. */
+    private static final class Checkpoint {
+        final TaskTree tasks;
+        final UndoHistory.State history;
+        /** Edits applied since, oldest first; undone ones are in {@link #undone}. */
+        final List<UndoHistory.Edit> applied = new ArrayList<>();
+        /** For each entry of {@link #applied}, whether it was applied by an undo. */
+        final List<Boolean> undone = new ArrayList<>();
+
+        Checkpoint(TaskTree tasks, UndoHistory.State history) {
+            this.tasks = tasks;
+            this.history = history;
+        }
+    }
 
     /**
      * Creates an empty task list.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(List.of());
     }
 
     /**
@@ -29,7 +85,28 @@ public class TaskList {
      * @param initial tasks to copy into this list
      */
     public TaskList(List<Task> initial) {
-        this.tasks = new ArrayList<>(initial);
+        this(initial, UndoHistory.DEFAULT_DEPTH, UndoHistory.DEFAULT_MEMORY);
+    }
+
+    /**
+     * Creates a task list with its own limits on the undo history.
+     *
+     * @param initial    tasks to copy into this list
+     * @param undoDepth  the most changes that can be undone
+     * @param undoMemory the estimated memory the undo history may hold, in bytes
+     */
+    TaskList(List<Task> initial, int undoDepth, long undoMemory) {
+        this.history = new UndoHistory(undoDepth, undoMemory);
+        long stamp = lock.writeLock();
+        try {
+            TaskTree tree = TaskTree.of(initial, nextId);
+            for (Task t : tree) {
+                indexAdd(t, nextId++);
+            }
+            tasks = tree;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -53,16 +130,38 @@ public class TaskList {
     }
 
     /**
-     * Returns the underlying list of tasks.
+     * Returns the stable id of the task at the given zero-based index.
+     *
+     * @param idx0 zero-based index of the task
+     * @return the id of that task
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public long idAt(int idx0) {
+        return tasks.idAt(idx0);
+    }
+
+    /**
+     * Returns the current zero-based index of the task with the given id.
+     *
+     * @param id a stable task id
+     * @return the index, or {@code -1} if the task is no longer in the list
+     */
+    public int indexOf(long id) {
+        return tasks.indexOf(id);
+    }
+
+    /**
+     * Returns an immutable snapshot of the tasks in list order, without
+     * locking or copying.
      * <p>
-     * Note: this exposes the internal list directly; callers should
-     * avoid mutating it directly unless necessary.
+     * Later changes to this list do not show up in the snapshot. Iterating
+     * over it takes {@code O(n)} time; each {@code get} takes {@code O(log n)}.
      * </p>
      *
      * @return the list of tasks
      */
     public List<Task> asList() {
-        return tasks;
+        return new Snapshot(tasks);
     }
 
     /**
@@ -72,8 +171,18 @@ public class TaskList {
      * @return the same task for convenience
      */
     public Task add(Task t) {
-        tasks.add(t);
-        return t;
+        long stamp = lock.writeLock();
+        try {
+            TaskTree before = tasks;
+            long id = nextId++;
+            tasks = before.plus(id, t);
+            indexAdd(t, id);
+            record(new UndoHistory.Edit(UndoHistory.Kind.ADDED, before, tasks,
+                    new long[] {id}, new Task[] {t}, null));
+            return t;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -84,36 +193,482 @@ public class TaskList {
      * @throws IndexOutOfBoundsException if the index is invalid
      */
     public Task deleteAt(int idx0) {
-        return tasks.remove(idx0);
+        long stamp = lock.writeLock();
+        try {
+            TaskTree before = tasks;
+            Task t = before.get(idx0);
+            long id = before.idAt(idx0);
+            tasks = before.minusAt(idx0);
+            indexRemove(t);
+            record(new UndoHistory.Edit(UndoHistory.Kind.DELETED, before, tasks,
+                    new long[] {id}, new Task[] {t}, null));
+            return t;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Marks the task at the given zero-based index as done or not done.
+     * Deletes the tasks at the given zero-based indexes in one pass.
+     * <p>
+     * Large deletions rebuild the tree once from the remaining tasks, so
+     * deleting {@code k} tasks costs at most {@code O(n + k log n)}.
+     * </p>
+     *
+     * @param idx0s zero-based indexes, ascending and without duplicates
+     * @return the deleted tasks, in list order
+     * @throws IndexOutOfBoundsException if an index is invalid
+     */
+    public List<Task> deleteAll(int[] idx0s) {
+        long stamp = lock.writeLock();
+        try {
+            TaskTree before = tasks;
+            List<Task> removed = new ArrayList<>(idx0s.length);
+            tasks = before.minusAll(idx0s, removed);
+            long[] ids = new long[removed.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = before.idAt(idx0s[i]);
+                indexRemove(removed.get(i));
+            }
+            record(new UndoHistory.Edit(UndoHistory.Kind.DELETED, before, tasks,
+                    ids, removed.toArray(new Task[0]), null));
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks the task at the given zero-based index as done or not done, by
+     * replacing it with a copy.
      *
      * @param idx0 zero-based index of the task
      * @param done true to mark as done, false to mark as not done
-     * @return the updated task
+     * @return the task now in the list
      * @throws IndexOutOfBoundsException if the index is invalid
      */
     public Task setDone(int idx0, boolean done) {
-        Task t = tasks.get(idx0);
-        if (done) {
-            t.markAsDone();
-        } else {
-            t.markAsNotDone();
+        return setDoneAll(new int[] {idx0}, done).get(0);
+    }
+
+    /**
+     * Marks the tasks at the given zero-based indexes as done or not done, as
+     * one change.
+     *
+     * @param idx0s zero-based indexes of the tasks
+     * @param done  true to mark as done, false to mark as not done
+     * @return the tasks now in the list
+     * @throws IndexOutOfBoundsException if an index is invalid
+     */
+    public List<Task> setDoneAll(int[] idx0s, boolean done) {
+        long stamp = lock.writeLock();
+        try {
+            TaskTree before = tasks;
+            long[] ids = new long[idx0s.length];
+            Task[] previous = new Task[idx0s.length];
+            for (int i = 0; i < idx0s.length; i++) {
+                ids[i] = before.idAt(idx0s[i]);
+                previous[i] = before.get(idx0s[i]);
+            }
+            TaskTree after = before;
+            Task[] changed = new Task[previous.length];
+            for (int i = 0; i < previous.length; i++) {
+                changed[i] = previous[i].withDone(done);
+                after = after.replace(ids[i], changed[i]);
+                indexReplace(previous[i], changed[i]);
+            }
+            tasks = after;
+            record(new UndoHistory.Edit(UndoHistory.Kind.DONE, before, after,
+                    ids, changed, previous));
+            return Arrays.asList(changed);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reverts the most recent change that has not been undone yet.
+     *
+     * @return what the list did to revert it, or {@code null} if there is
+     *         nothing to undo
+     */
+    public Change undo() {
+        long stamp = lock.writeLock();
+        try {
+            UndoHistory.Edit e = history.undo();
+            if (e == null) {
+                return null;
+            }
+            applied(e, true);
+            switch (e.kind) {
+                case ADDED:
+                    return remove(e, e.before);
+                case DELETED:
+                    return insert(e, e.before);
+                default:
+                    return flags(e, e.before, e.tasks, e.previous);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies again the most recently undone change.
+     *
+     * @return what the list did to reapply it, or {@code null} if there is
+     *         nothing to redo
+     */
+    public Change redo() {
+        long stamp = lock.writeLock();
+        try {
+            UndoHistory.Edit e = history.redo();
+            if (e == null) {
+                return null;
+            }
+            applied(e, false);
+            switch (e.kind) {
+                case ADDED:
+                    return insert(e, e.after);
+                case DELETED:
+                    return remove(e, e.after);
+                default:
+                    return flags(e, e.after, e.previous, e.tasks);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of changes that can currently be undone.
+     *
+     * @return the undo depth
+     */
+    public int undoDepth() {
+        long stamp = lock.readLock();
+        try {
+            return history.undoDepth();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Remembers the current tasks and undo history, so that
+     * {@link #rollback()} can return to them. A new checkpoint replaces the
+     * previous one. Taking one does not copy the list.
+     */
+    public void checkpoint() {
+        long stamp = lock.writeLock();
+        try {
+            checkpoint = new Checkpoint(tasks, history.save());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns to the last checkpoint and forgets it. The changes made since
+     * are reverted without being recorded, the undo history is back as it
+     * was, and only the tasks those changes touched are indexed again.
+     *
+     * @throws IllegalStateException if there is no checkpoint
+     */
+    public void rollback() {
+        long stamp = lock.writeLock();
+        try {
+            Checkpoint c = checkpoint;
+            if (c == null) {
+                throw new IllegalStateException("No checkpoint to roll back to");
+            }
+            checkpoint = null;
+            for (int i = c.applied.size() - 1; i >= 0; i--) {
+                reindex(c.applied.get(i), !c.undone.get(i));
+            }
+            tasks = c.tasks;
+            history.restore(c.history);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Forgets the last checkpoint, keeping the changes made since.
+     */
+    public void release() {
+        long stamp = lock.writeLock();
+        try {
+            checkpoint = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void record(UndoHistory.Edit e) {
+        history.record(e);
+        applied(e, false);
+    }
+
+    /** Notes an edit that was just applied or undone, for {@link #rollback()}. */
+    private void applied(UndoHistory.Edit e, boolean undone) {
+        if (checkpoint != null) {
+            checkpoint.applied.add(e);
+            checkpoint.undone.add(undone);
+        }
+    }
+
+    /** Updates the indexes as if an edit was undone, or redone if {@code undo} is false. */
+    private void reindex(UndoHistory.Edit e, boolean undo) {
+        for (int i = 0; i < e.ids.length; i++) {
+            switch (e.kind) {
+                case ADDED:
+                case DELETED:
+                    if ((e.kind == UndoHistory.Kind.ADDED) == undo) {
+                        indexRemove(e.tasks[i]);
+                    } else {
+                        indexAdd(e.tasks[i], e.ids[i]);
+                    }
+                    break;
+                default:
+                    if (undo) {
+                        indexReplace(e.tasks[i], e.previous[i]);
+                    } else {
+                        indexReplace(e.previous[i], e.tasks[i]);
+                    }
+                    break;
+            }
         }
-        return t;
     }
 
-    /** Returns tasks whose descriptions contain the needle (case-insensitive). */
-    public List<eve.tasks.Task> find(String needle) {
+    /** Switches to a version that holds the tasks of an edit, and indexes them. */
+    private Change insert(UndoHistory.Edit e, TaskTree version) {
+        tasks = version;
+        int[] at = new int[e.ids.length];
+        for (int i = 0; i < at.length; i++) {
+            indexAdd(e.tasks[i], e.ids[i]);
+            at[i] = version.indexOf(e.ids[i]);
+        }
+        return new Change(Change.Effect.INSERTED, e.tasks, at);
+    }
+
+    /** Switches to a version without the tasks of an edit, and unindexes them. */
+    private Change remove(UndoHistory.Edit e, TaskTree version) {
+        int[] at = new int[e.ids.length];
+        for (int i = 0; i < at.length; i++) {
+            at[i] = tasks.indexOf(e.ids[i]);
+            indexRemove(e.tasks[i]);
+        }
+        tasks = version;
+        return new Change(Change.Effect.REMOVED, e.tasks, at);
+    }
+
+    /** Switches to a version where the tasks of an edit have other done states. */
+    private Change flags(UndoHistory.Edit e, TaskTree version, Task[] from, Task[] to) {
+        tasks = version;
+        int[] at = new int[e.ids.length];
+        for (int i = 0; i < at.length; i++) {
+            indexReplace(from[i], to[i]);
+            at[i] = version.indexOf(e.ids[i]);
+        }
+        return new Change(Change.Effect.DONE_CHANGED, to, at);
+    }
+
+    private void indexAdd(Task t, long id) {
+        index.add(t, id);
+        deadlines.add(t, id);
+        events.add(t, id);
+    }
+
+    private void indexRemove(Task t) {
+        index.remove(t);
+        deadlines.remove(t);
+        events.remove(t);
+    }
+
+    private void indexReplace(Task old, Task now) {
+        index.replace(old, now);
+        deadlines.replace(old, now);
+        events.replace(old, now);
+    }
+
+    /**
+     * Returns tasks whose descriptions contain the needle (case-insensitive),
+     * in list order.
+     * <p>
+     * Needles of three or more characters are looked up in the trigram index;
+     * shorter ones fall back to a scan over the cached lower-cased descriptions.
+     * </p>
+     *
+     * @param needle text to search for
+     * @return the matching tasks
+     */
+    public List<Task> find(String needle) {
         String n = needle.toLowerCase();
-        List<eve.tasks.Task> matches = new ArrayList<>();
-        for (eve.tasks.Task t : tasks) {
-            if (t.getDescription().toLowerCase().contains(n)) {
-                matches.add(t);
+        long stamp = lock.readLock();
+        try {
+            List<Task> matches = index.find(n);
+            if (matches != null) {
+                return matches;
+            }
+            matches = new ArrayList<>();
+            for (Task t : tasks) {
+                if (index.lower(t).contains(n)) {
+                    matches.add(t);
+                }
             }
+            return matches;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} deadlines that are not done and are due at or
+     * after the given time, soonest first.
+     *
+     * @param from  the earliest due time to include
+     * @param limit the maximum number of deadlines to return
+     * @return the matching deadlines
+     */
+    public List<Task> upcoming(LocalDateTime from, int limit) {
+        long stamp = lock.readLock();
+        try {
+            return deadlines.upcoming(from, limit);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns all deadlines that are not done and are due before the given
+     * time, soonest first. Overdue deadlines are included.
+     *
+     * @param end the due time to stop at (exclusive)
+     * @return the matching deadlines
+     */
+    public List<Task> dueBefore(LocalDateTime end) {
+        long stamp = lock.readLock();
+        try {
+            return deadlines.dueBefore(end);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the events overlapping the range {@code [from, to)}, ordered by
+     * start time. Events that merely touch the range do not overlap it.
+     *
+     * @param from start of the range (inclusive)
+     * @param to   end of the range (exclusive)
+     * @return the overlapping events
+     */
+    public List<Task> clashes(LocalDateTime from, LocalDateTime to) {
+        List<Task> out = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            events.overlapping(from, to, out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the parts of the range {@code [from, to)} not covered by any
+     * event, in time order.
+     *
+     * @param from start of the range (inclusive)
+     * @param to   end of the range (exclusive)
+     * @return the free slots
+     */
+    public List<Slot> freeSlots(LocalDateTime from, LocalDateTime to) {
+        List<Slot> out = new ArrayList<>();
+        LocalDateTime free = from;
+        for (Task t : clashes(from, to)) {
+            Event e = (Event) t;
+            if (e.getFromDT().isAfter(free)) {
+                out.add(new Slot(free, e.getFromDT()));
+            }
+            if (e.getToDT().isAfter(free)) {
+                free = e.getToDT();
+            }
+        }
+        if (free.isBefore(to)) {
+            out.add(new Slot(free, to));
+        }
+        return out;
+    }
+
+    /** Read-only list over one version of {@link #tasks}. */
+    private static final class Snapshot extends AbstractList<Task> {
+        private final TaskTree tree;
+
+        Snapshot(TaskTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public Task get(int index) {
+            return tree.get(index);
+        }
+
+        @Override
+        public int size() {
+            return tree.size();
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return tree.iterator();
+        }
+    }
+
+    /**
+     * Describes what {@link #undo()} or {@link #redo()} did to the list, so
+     * that it can be shown and saved.
+     */
+    public static final class Change {
+        /** The kinds of effect an undo or redo can have. */
+        public enum Effect {
+            /** The tasks were put back into the list. */
+            INSERTED,
+            /** The tasks were taken out of the list. */
+            REMOVED,
+            /** The done flags of the tasks were changed. */
+            DONE_CHANGED
+        }
+
+        /** What happened to the tasks. */
+        public final Effect effect;
+        /** The affected tasks, in list order. */
+        public final List<Task> tasks;
+        /**
+         * Zero-based positions of the tasks, ascending: where they are now, or
+         * for {@link Effect#REMOVED} where they were before being removed.
+         */
+        public final int[] positions;
+
+        public Change(Effect effect, Task[] tasks, int[] positions) {
+            this.effect = effect;
+            this.tasks = List.of(tasks);
+            this.positions = positions;
+        }
+    }
+
+    /**
+     * Simple value object holding a time range {@code [from, to)}.
+     */
+    public static final class Slot {
+        /** Start of the range (inclusive). */
+        public final LocalDateTime from;
+        /** End of the range (exclusive). */
+        public final LocalDateTime to;
+
+        public Slot(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
         }
-        return matches;
     }
 }
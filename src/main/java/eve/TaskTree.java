@@ -0,0 +1,394 @@
+package eve;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import eve.tasks.Task;
+
+/**
+ * Immutable order-statistic tree holding the tasks of a {@link TaskList} in
+ * list order.
+ * <p>
+ * This is a treap keyed by each task's stable id, where every node also
+ * records the size of its subtree. Ids are handed out in increasing order as
+ * tasks are appended, so ordering by id is the same as list order, and the
+ * position of a task is the number of ids before it. Looking a task up by
+ * position, finding the position of an id, and adding or removing a task all
+ * take {@code O(log n)} expected time; deleting a task does not shift the
+ * ones after it. Node priorities are a hash of the id, so the shape of the
+ * tree depends only on the ids it holds.
+ * <p>
+ * The tree is persistent: adding, replacing or removing a task copies only
+ * the nodes on the path to it and returns a new tree, sharing the rest with
+ * the old one. A tree can therefore be read from any thread without locking,
+ * and serves as a snapshot of the list at the time it was made.
+ */
+final class TaskTree implements Iterable<Task> {
+    private static final class Node {
+        final long id;
+        final int priority;
+        final Task task;
+        final int size;
+        final Node left;
+        final Node right;
+
+        Node(long id, int priority, Task task, Node left, Node right) {
+            this.id = id;
+            this.priority = priority;
+            this.task = task;
+            this.size = size(left) + size(right) + 1;
+            this.left = left;
+            this.right = right;
+        }
+
+        Node with(Node left, Node right) {
+            return new Node(id, priority, task, left, right);
+        }
+
+        Node with(Task task) {
+            return new Node(id, priority, task, left, right);
+        }
+    }
+
+    /** The tree with no tasks. */
+    static final TaskTree EMPTY = new TaskTree(null);
+
+    private final Node root;
+
+    private TaskTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds a tree from tasks already in list order in {@code O(n)}, giving
+     * them the ids {@code firstId}, {@code firstId + 1}, and so on.
+     *
+     * @param tasks   the tasks in list order
+     * @param firstId the id of the first task
+     * @return the tree
+     */
+    static TaskTree of(List<Task> tasks, long firstId) {
+        int n = tasks.size();
+        long[] ids = new long[n];
+        Task[] items = new Task[n];
+        int i = 0;
+        for (Task t : tasks) {
+            ids[i] = firstId + i;
+            items[i++] = t;
+        }
+        return build(ids, items, n);
+    }
+
+    /**
+     * Returns the number of tasks in the tree.
+     *
+     * @return the number of tasks
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the task at a zero-based position.
+     *
+     * @param idx0 zero-based position
+     * @return the task
+     * @throws IndexOutOfBoundsException if the position is invalid
+     */
+    Task get(int idx0) {
+        return nodeAt(idx0).task;
+    }
+
+    /**
+     * Returns the id of the task at a zero-based position.
+     *
+     * @param idx0 zero-based position
+     * @return the id
+     * @throws IndexOutOfBoundsException if the position is invalid
+     */
+    long idAt(int idx0) {
+        return nodeAt(idx0).id;
+    }
+
+    /**
+     * Returns the zero-based position of the task with the given id.
+     *
+     * @param id the task id
+     * @return the position, or {@code -1} if no task has that id
+     */
+    int indexOf(long id) {
+        int before = 0;
+        Node n = root;
+        while (n != null) {
+            if (id < n.id) {
+                n = n.left;
+            } else if (id > n.id) {
+                before += size(n.left) + 1;
+                n = n.right;
+            } else {
+                return before + size(n.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a tree that also holds a task with an id that no task in this
+     * tree has yet. Ids larger than every other id append the task to the end
+     * of the list.
+     *
+     * @param id   the task id
+     * @param task the task
+     * @return the new tree
+     */
+    TaskTree plus(long id, Task task) {
+        return new TaskTree(insert(root, new Node(id, priority(id), task, null, null)));
+    }
+
+    /**
+     * Returns a tree where the task with the given id is replaced by another
+     * one, at the same position.
+     *
+     * @param id   the id of a task in this tree
+     * @param task the task to put in its place
+     * @return the new tree
+     * @throws IllegalArgumentException if no task has that id
+     */
+    TaskTree replace(long id, Task task) {
+        return new TaskTree(replace(root, id, task));
+    }
+
+    /**
+     * Returns a tree without the task at a zero-based position.
+     *
+     * @param idx0 zero-based position
+     * @return the new tree
+     * @throws IndexOutOfBoundsException if the position is invalid
+     */
+    TaskTree minusAt(int idx0) {
+        return new TaskTree(remove(root, nodeAt(idx0).id));
+    }
+
+    /**
+     * Returns a tree without the tasks at the given zero-based positions. Few
+     * removals are done one by one; otherwise the remaining tasks are
+     * collected in one in-order pass and a new tree is built from them in
+     * {@code O(n)}, keeping their ids.
+     *
+     * @param idx0s   zero-based positions, ascending and without duplicates
+     * @param removed receives the removed tasks, in list order
+     * @return the new tree
+     * @throws IndexOutOfBoundsException if a position is invalid
+     */
+    TaskTree minusAll(int[] idx0s, List<Task> removed) {
+        if (idx0s.length == 0) {
+            return this;
+        }
+        int n = size(root);
+        if (idx0s[0] < 0 || idx0s[idx0s.length - 1] >= n) {
+            throw new IndexOutOfBoundsException("Index out of bounds for length " + n);
+        }
+        if ((long) idx0s.length * (32 - Integer.numberOfLeadingZeros(n)) < n) {
+            Node r = root;
+            for (int idx0 : idx0s) {
+                Node gone = nodeAt(idx0);
+                removed.add(gone.task);
+                r = remove(r, gone.id);
+            }
+            return new TaskTree(r);
+        }
+        int count = n - idx0s.length;
+        long[] ids = new long[count];
+        Task[] items = new Task[count];
+        int kept = 0;
+        int pos = 0;
+        int next = 0;
+        ArrayDeque<Node> path = new ArrayDeque<>();
+        Node cur = root;
+        while (cur != null || !path.isEmpty()) {
+            while (cur != null) {
+                path.push(cur);
+                cur = cur.left;
+            }
+            Node node = path.pop();
+            cur = node.right;
+            if (next < idx0s.length && idx0s[next] == pos) {
+                next++;
+                removed.add(node.task);
+            } else {
+                ids[kept] = node.id;
+                items[kept++] = node.task;
+            }
+            pos++;
+        }
+        return build(ids, items, count);
+    }
+
+    /**
+     * Returns the tasks in list order, without copying them.
+     *
+     * @return an iterator over the tasks
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private final ArrayDeque<Node> path = new ArrayDeque<>();
+            private Node next = root;
+
+            @Override
+            public boolean hasNext() {
+                return next != null || !path.isEmpty();
+            }
+
+            @Override
+            public Task next() {
+                while (next != null) {
+                    path.push(next);
+                    next = next.left;
+                }
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node n = path.pop();
+                next = n.right;
+                return n.task;
+            }
+        };
+    }
+
+    /**
+     * Builds a treap from tasks with ascending ids in {@code O(n)}. The shape
+     * is worked out first with a stack holding the rightmost path, as for a
+     * Cartesian tree, and the immutable nodes are then created bottom-up.
+     */
+    private static TaskTree build(long[] ids, Task[] items, int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        int[] priorities = new int[count];
+        int[] left = new int[count];
+        int[] right = new int[count];
+        int[] spine = new int[count];
+        int depth = 0;
+        for (int i = 0; i < count; i++) {
+            priorities[i] = priority(ids[i]);
+            right[i] = -1;
+            int last = -1;
+            while (depth > 0 && priorities[spine[depth - 1]] < priorities[i]) {
+                last = spine[--depth];
+            }
+            left[i] = last;
+            if (depth > 0) {
+                right[spine[depth - 1]] = i;
+            }
+            spine[depth++] = i;
+        }
+        return new TaskTree(link(spine[0], ids, items, priorities, left, right));
+    }
+
+    private static Node link(int i, long[] ids, Task[] items, int[] priorities, int[] left, int[] right) {
+        if (i < 0) {
+            return null;
+        }
+        return new Node(ids[i], priorities[i], items[i],
+                link(left[i], ids, items, priorities, left, right),
+                link(right[i], ids, items, priorities, left, right));
+    }
+
+    private Node nodeAt(int idx0) {
+        if (idx0 < 0 || idx0 >= size(root)) {
+            throw new IndexOutOfBoundsException("Index " + idx0 + " out of bounds for length " + size(root));
+        }
+        Node n = root;
+        while (true) {
+            int left = size(n.left);
+            if (idx0 < left) {
+                n = n.left;
+            } else if (idx0 > left) {
+                idx0 -= left + 1;
+                n = n.right;
+            } else {
+                return n;
+            }
+        }
+    }
+
+    private static Node insert(Node n, Node x) {
+        if (n == null) {
+            return x;
+        }
+        if (x.priority > n.priority) {
+            Node[] parts = split(n, x.id);
+            return x.with(parts[0], parts[1]);
+        }
+        if (x.id < n.id) {
+            return n.with(insert(n.left, x), n.right);
+        }
+        return n.with(n.left, insert(n.right, x));
+    }
+
+    private static Node replace(Node n, long id, Task task) {
+        if (n == null) {
+            throw new IllegalArgumentException("No task with id " + id);
+        }
+        if (id < n.id) {
+            return n.with(replace(n.left, id, task), n.right);
+        }
+        if (id > n.id) {
+            return n.with(n.left, replace(n.right, id, task));
+        }
+        return n.with(task);
+    }
+
+    private static Node remove(Node n, long id) {
+        if (id < n.id) {
+            return n.with(remove(n.left, id), n.right);
+        }
+        if (id > n.id) {
+            return n.with(n.left, remove(n.right, id));
+        }
+        return merge(n.left, n.right);
+    }
+
+    /** Splits a tree into copies holding the ids below {@code id} and the rest. */
+    private static Node[] split(Node n, long id) {
+        if (n == null) {
+            return new Node[2];
+        }
+        if (n.id < id) {
+            Node[] parts = split(n.right, id);
+            parts[0] = n.with(n.left, parts[0]);
+            return parts;
+        }
+        Node[] parts = split(n.left, id);
+        parts[1] = n.with(parts[1], n.right);
+        return parts;
+    }
+
+    /** Joins two trees where every id in {@code a} is below every id in {@code b}. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            return a.with(a.left, merge(a.right, b));
+        }
+        return b.with(merge(a, b.left), b.right);
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static int priority(long id) {
+        long z = id * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 31));
+    }
+}
@@ -0,0 +1,216 @@
+package eve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import eve.tasks.Task;
+
+/**
+ * Inverted index from lower-cased description trigrams to the tasks that
+ * contain them, used by {@link TaskList#find(String)}.
+ * <p>
+ * Tasks are indexed under their stable id in the {@link TaskList}. Id order is
+ * list order, and new tasks get the largest id, so posting lists are usually
+ * kept sorted just by appending; a task put back by {@code undo} is inserted
+ * in place. Deleted tasks are dropped from a posting list lazily, once enough
+ * of its entries are dead.
+ */
+class TrigramIndex {
+    /** An indexed task with its id and cached lower-cased description. */
+    private static final class Entry {
+        final Task task;
+        final long seq;
+        final String lower;
+
+        Entry(Task task, long seq, String lower) {
+            this.task = task;
+            this.seq = seq;
+            this.lower = lower;
+        }
+    }
+
+    /** Sorted ids of the tasks containing one trigram. */
+    private static final class Posting {
+        long[] seqs = new long[4];
+        int size;
+        int dead;
+
+        void insert(long seq) {
+            int at = size == 0 || seqs[size - 1] < seq ? -size - 1 : Arrays.binarySearch(seqs, 0, size, seq);
+            if (at >= 0) {
+                // a dead entry left behind by the same task, which is back now
+                if (dead > 0) {
+                    dead--;
+                }
+                return;
+            }
+            at = -at - 1;
+            if (size == seqs.length) {
+                seqs = Arrays.copyOf(seqs, size * 2);
+            }
+            System.arraycopy(seqs, at, seqs, at + 1, size - at);
+            seqs[at] = seq;
+            size++;
+        }
+    }
+
+    private final Map<Task, Entry> byTask = new IdentityHashMap<>();
+    private final Map<Long, Entry> bySeq = new HashMap<>();
+    private final Map<Long, Posting> postings = new HashMap<>();
+
+    /**
+     * Indexes a task.
+     *
+     * @param t  the task
+     * @param id the stable id of the task in the list
+     */
+    void add(Task t, long id) {
+        Entry e = new Entry(t, id, t.getDescription().toLowerCase());
+        byTask.put(t, e);
+        bySeq.put(e.seq, e);
+        for (long k : trigrams(e.lower)) {
+            postings.computeIfAbsent(k, x -> new Posting()).insert(e.seq);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param t the task
+     */
+    void remove(Task t) {
+        Entry e = byTask.remove(t);
+        if (e == null) {
+            return;
+        }
+        bySeq.remove(e.seq);
+        for (long k : trigrams(e.lower)) {
+            Posting p = postings.get(k);
+            if (p == null || p.dead == -1) {
+                continue;
+            }
+            p.dead++;
+            if (p.dead * 2 > p.size) {
+                compact(k, p);
+            }
+        }
+    }
+
+    /**
+     * Replaces an indexed task by a copy with the same description, keeping
+     * its id.
+     *
+     * @param old the indexed task
+     * @param now the task that takes its place
+     */
+    void replace(Task old, Task now) {
+        Entry e = byTask.remove(old);
+        if (e == null) {
+            return;
+        }
+        Entry moved = new Entry(now, e.seq, e.lower);
+        byTask.put(now, moved);
+        bySeq.put(moved.seq, moved);
+    }
+
+    /**
+     * Returns the lower-cased description of an indexed task.
+     *
+     * @param t the task
+     * @return the cached lower-cased description
+     */
+    String lower(Task t) {
+        Entry e = byTask.get(t);
+        return e != null ? e.lower : t.getDescription().toLowerCase();
+    }
+
+    /**
+     * Returns the indexed tasks whose lower-cased description contains the
+     * lower-cased needle, in list order, or {@code null} if the needle is too
+     * short to use the index.
+     *
+     * @param needle lower-cased text to search for
+     * @return matching tasks, or {@code null} if the caller should scan
+     */
+    List<Task> find(String needle) {
+        if (needle.length() < 3) {
+            return null;
+        }
+        List<Posting> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= needle.length(); i++) {
+            Posting p = postings.get(key(needle, i));
+            if (p == null) {
+                return new ArrayList<>();
+            }
+            if (!lists.contains(p)) {
+                lists.add(p);
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        List<Task> out = new ArrayList<>();
+        Posting first = lists.get(0);
+        int[] from = new int[lists.size()];
+        outer:
+        for (int i = 0; i < first.size; i++) {
+            long seq = first.seqs[i];
+            for (int j = 1; j < lists.size(); j++) {
+                Posting p = lists.get(j);
+                int at = Arrays.binarySearch(p.seqs, from[j], p.size, seq);
+                if (at < 0) {
+                    from[j] = -at - 1;
+                    continue outer;
+                }
+                from[j] = at + 1;
+            }
+            Entry e = bySeq.get(seq);
+            if (e != null && e.lower.contains(needle)) {
+                out.add(e.task);
+            }
+        }
+        return out;
+    }
+
+    /** Drops the sequence numbers of removed tasks from a posting list. */
+    private void compact(Long k, Posting p) {
+        int n = 0;
+        for (int i = 0; i < p.size; i++) {
+            if (bySeq.containsKey(p.seqs[i])) {
+                p.seqs[n++] = p.seqs[i];
+            }
+        }
+        if (n == 0) {
+            postings.remove(k);
+            p.dead = -1;
+            return;
+        }
+        p.size = n;
+        p.dead = 0;
+    }
+
+    /** Returns the distinct trigram keys of a string, sorted. */
+    private static long[] trigrams(String s) {
+        int n = Math.max(0, s.length() - 2);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key(s, i);
+        }
+        Arrays.sort(keys);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || keys[distinct - 1] != keys[i]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    /** Packs the three characters starting at {@code i} into one key. */
+    private static Long key(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,181 @@
+package eve;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import eve.tasks.Task;
+
+/**
+ * Undo and redo stacks of the changes made to a {@link TaskList}.
+ * <p>
+ * Each entry keeps the {@link TaskTree} versions from before and after the
+ * change. Trees are persistent, so the two versions share every node except
+ * the ones the change copied, and an entry costs {@code O(k log n)} memory
+ * for a change to {@code k} tasks rather than a copy of the list. Marking a
+ * task replaces it with a copy, so the versions also keep its done state.
+ * <p>
+ * The history keeps at most {@code maxDepth} entries and drops the oldest
+ * ones once their estimated size passes {@code maxBytes}. The defaults come
+ * from the {@code eve.undoDepth} and {@code eve.undoMemory} (in bytes)
+ * system properties.
+ */
+final class UndoHistory {
+    /** Default number of changes that can be undone. */
+    static final int DEFAULT_DEPTH = Math.max(0, Integer.getInteger("eve.undoDepth", 100));
+    /** Default bound on the estimated memory held by the history, in bytes. */
+    static final long DEFAULT_MEMORY = Math.max(0, Long.getLong("eve.undoMemory", 8L << 20));
+
+    /** Rough size of one tree node, including the object header. */
+    private static final int NODE_BYTES = 48;
+
+    /** What a recorded change did. */
+    enum Kind {
+        ADDED, DELETED, DONE
+    }
+
+    /** One recorded change. */
+    static final class Edit {
+        final Kind kind;
+        final TaskTree before;
+        final TaskTree after;
+        /** Ids of the changed tasks, in list order. */
+        final long[] ids;
+        /** The changed tasks as they are in {@link #after}, in the same order as {@link #ids}. */
+        final Task[] tasks;
+        /** For {@link Kind#DONE}: the tasks as they are in {@link #before}. */
+        final Task[] previous;
+        final long bytes;
+
+        Edit(Kind kind, TaskTree before, TaskTree after, long[] ids, Task[] tasks, Task[] previous) {
+            this.kind = kind;
+            this.before = before;
+            this.after = after;
+            this.ids = ids;
+            this.tasks = tasks;
+            this.previous = previous;
+            int n = Math.max(before.size(), after.size());
+            long copied = Math.min((long) ids.length * (33 - Integer.numberOfLeadingZeros(n)), n);
+            this.bytes = 64 + copied * NODE_BYTES + ids.length * 17L;
+        }
+    }
+
+    /** A copy of both stacks, to go back to with {@link #restore(State)}. */
+    static final class State {
+        private final Deque<Edit> undo;
+        private final Deque<Edit> redo;
+        private final long bytes;
+
+        private State(Deque<Edit> undo, Deque<Edit> redo, long bytes) {
+            this.undo = undo;
+            this.redo = redo;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Deque<Edit> undo = new ArrayDeque<>();
+    private final Deque<Edit> redo = new ArrayDeque<>();
+    private final int maxDepth;
+    private final long maxBytes;
+    private long bytes;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param maxDepth the most changes that can be undone; {@code 0} turns
+     *                 the history off
+     * @param maxBytes the estimated memory the history may hold
+     */
+    UndoHistory(int maxDepth, long maxBytes) {
+        this.maxDepth = maxDepth;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Records a new change. Changes undone so far can no longer be redone.
+     *
+     * @param e the change
+     */
+    void record(Edit e) {
+        for (Edit r : redo) {
+            bytes -= r.bytes;
+        }
+        redo.clear();
+        pushUndo(e);
+    }
+
+    /**
+     * Removes the newest change that can be undone, and makes it redoable.
+     *
+     * @return the change, or {@code null} if there is none
+     */
+    Edit undo() {
+        Edit e = undo.pollFirst();
+        if (e != null) {
+            redo.push(e);
+        }
+        return e;
+    }
+
+    /**
+     * Removes the newest undone change, and makes it undoable again.
+     *
+     * @return the change, or {@code null} if there is none
+     */
+    Edit redo() {
+        Edit e = redo.pollFirst();
+        if (e != null) {
+            bytes -= e.bytes;
+            pushUndo(e);
+        }
+        return e;
+    }
+
+    /**
+     * Copies the stacks. Edits are immutable, so this takes time in the
+     * number of entries, which the depth limit bounds.
+     *
+     * @return the current state
+     */
+    State save() {
+        return new State(new ArrayDeque<>(undo), new ArrayDeque<>(redo), bytes);
+    }
+
+    /**
+     * Puts back the stacks as they were when a state was saved.
+     *
+     * @param s a state returned by {@link #save()}
+     */
+    void restore(State s) {
+        undo.clear();
+        undo.addAll(s.undo);
+        redo.clear();
+        redo.addAll(s.redo);
+        bytes = s.bytes;
+    }
+
+    /**
+     * Returns the number of changes that can be undone.
+     *
+     * @return the undo depth
+     */
+    int undoDepth() {
+        return undo.size();
+    }
+
+    /**
+     * Returns the estimated memory held by the history.
+     *
+     * @return the estimate, in bytes
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    private void pushUndo(Edit e) {
+        undo.push(e);
+        bytes += e.bytes;
+        while (!undo.isEmpty() && (undo.size() > maxDepth || bytes > maxBytes)) {
+            bytes -= undo.removeLast().bytes;
+        }
+    }
+}
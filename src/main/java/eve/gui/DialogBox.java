@@ -1,63 +1,66 @@
 package eve.gui;
 
-import java.io.IOException;
-import java.util.Collections;
-
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's
  * face
  * and a label containing text from the speaker.
+ * <p>
+ * The box is built in code rather than loaded from FXML, and can be pointed
+ * at another message with {@link #show(Message, Image)}, so that the cells
+ * of the conversation view reuse a handful of boxes for any number of
+ * messages.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final double PICTURE_SIZE = 99.0;
 
-    public DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.out.println("DialogBox.fxml loading error");
-        }
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
 
-        dialog.setText(text);
-        displayPicture.setImage(img);
+    public DialogBox() {
+        dialog.setWrapText(true);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+        setMaxWidth(Double.MAX_VALUE);
+        setPadding(new Insets(15.0, 5.0, 15.0, 5.0));
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the
-     * right.
+     * Shows a message: user messages have the picture on the right, Eve's on
+     * the left, and pending replies are dimmed.
+     *
+     * @param m   the message
+     * @param img the speaker's picture
      */
-    private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
-    }
-
-    public static DialogBox getUserDialog(String text, Image img) {
-        return new DialogBox(text, img);
+    public void show(Message m, Image img) {
+        dialog.setText(m.text);
+        displayPicture.setImage(img);
+        if (m.speaker == Message.Speaker.USER) {
+            getChildren().setAll(dialog, displayPicture);
+            setAlignment(Pos.TOP_RIGHT);
+        } else {
+            getChildren().setAll(displayPicture, dialog);
+            setAlignment(Pos.TOP_LEFT);
+        }
+        setOpacity(m.pending ? 0.5 : 1.0);
     }
 
-    public static DialogBox getEveDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
-        return db;
+    /**
+     * Limits the width of the text so that it wraps inside the given width.
+     *
+     * @param width the width available to the whole box
+     */
+    public void fitWidth(double width) {
+        dialog.setMaxWidth(Math.max(0, width - PICTURE_SIZE - 30));
     }
 }
@@ -0,0 +1,92 @@
+package eve.gui;
+
+import java.util.List;
+
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.Node;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+
+import eve.tasks.Task;
+
+/**
+ * A cell of the conversation view. The list view creates only as many cells
+ * as fit on screen and reuses them while scrolling, so each cell keeps one
+ * {@link DialogBox} and points it at whichever message it shows.
+ * <p>
+ * A message that carries tasks also gets a table under the text. The table
+ * reads the tasks straight from the message's snapshot and only renders the
+ * rows on screen, so it shows up just as fast for a huge list as for a short
+ * one.
+ */
+class DialogCell extends ListCell<Message> {
+    private static final double TABLE_HEIGHT = 300.0;
+
+    private final DialogBox box = new DialogBox();
+    private final Image userImage;
+    private final Image eveImage;
+    private TableView<Task> table;
+    private VBox boxAndTable;
+
+    DialogCell(Image userImage, Image eveImage) {
+        this.userImage = userImage;
+        this.eveImage = eveImage;
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        // Without this, wide cells would widen the list and wrapping would never kick in.
+        setPrefWidth(0);
+        // The list sets each cell's width on layout; listening to the list itself would keep every cell alive.
+        widthProperty().addListener((obs, old, width) -> box.fitWidth(width.doubleValue()));
+    }
+
+    @Override
+    protected void updateItem(Message m, boolean empty) {
+        super.updateItem(m, empty);
+        if (empty || m == null) {
+            setGraphic(null);
+            return;
+        }
+        box.show(m, m.speaker == Message.Speaker.USER ? userImage : eveImage);
+        setGraphic(m.tasks == null ? box : withTable(m.tasks));
+    }
+
+    private Node withTable(List<Task> tasks) {
+        if (table == null) {
+            table = createTable();
+            boxAndTable = new VBox();
+        }
+        table.setItems(FXCollections.observableList(tasks));
+        table.scrollTo(0);
+        boxAndTable.getChildren().setAll(box, table);
+        return boxAndTable;
+    }
+
+    /** Creates a table of tasks with a row number column; the list is a read-only snapshot, so it cannot be sorted. */
+    private static TableView<Task> createTable() {
+        TableColumn<Task, Task> number = new TableColumn<>("#");
+        number.setSortable(false);
+        number.setPrefWidth(60);
+        number.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Task t, boolean empty) {
+                super.updateItem(t, empty);
+                setText(empty ? null : Integer.toString(getIndex() + 1));
+            }
+        });
+        TableColumn<Task, String> task = new TableColumn<>("Task");
+        task.setSortable(false);
+        task.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().toString()));
+
+        TableView<Task> table = new TableView<>();
+        table.getColumns().add(number);
+        table.getColumns().add(task);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPrefHeight(TABLE_HEIGHT);
+        return table;
+    }
+}
@@ -3,10 +3,15 @@ package eve.gui;
 import javafx.application.Application;
 
 /**
- * Launcher for the GUI application.
+ * Launcher for the GUI application. With {@code --serve <port>}, runs Eve as
+ * a headless server instead.
  */
 public class Launcher {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--serve")) {
+            eve.Eve.main(args);
+            return;
+        }
         Application.launch(Main.class, args);
     }
 }
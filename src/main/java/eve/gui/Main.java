@@ -14,6 +14,7 @@ import javafx.stage.Stage;
 public class Main extends Application {
 
     private eve.Eve eve = new eve.Eve();
+    private MainWindow window;
 
     @Override
     public void start(Stage stage) {
@@ -22,7 +23,8 @@ public class Main extends Application {
             AnchorPane ap = fxmlLoader.load();
             Scene scene = new Scene(ap);
             stage.setScene(scene);
-            fxmlLoader.<MainWindow>getController().setEve(eve);
+            window = fxmlLoader.<MainWindow>getController();
+            window.setEve(eve);
             stage.setTitle("Eve");
             stage.show();
         } catch (IOException e) {
@@ -30,4 +32,12 @@ public class Main extends Application {
             System.out.println("MainWindow.fxml loading error");
         }
     }
+
+    @Override
+    public void stop() {
+        if (window != null) {
+            window.shutdown();
+        }
+        eve.shutdown();
+    }
 }
@@ -1,21 +1,42 @@
 package eve.gui;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+
+import eve.tasks.Task;
 
 /**
  * Controller for the main GUI.
+ * <p>
+ * Commands run on a single background thread, so saving or rendering a large
+ * list never blocks the JavaFX application thread. The worker runs commands
+ * one at a time in the order they were sent, and each reply is posted back
+ * with {@link Platform#runLater(Runnable)} in place of a pending message that
+ * was added when the command was sent.
+ * <p>
+ * The conversation is a {@link ListView} over a list of {@link Message}s, so
+ * only the visible messages have nodes, and those are recycled while
+ * scrolling. At most {@link #HISTORY_LIMIT} messages are kept; older ones are
+ * dropped. The limit comes from the {@code eve.guiHistory} system property.
  */
 public class MainWindow extends AnchorPane {
+    /** Most messages kept in the conversation; each command adds two. */
+    static final int HISTORY_LIMIT = Math.max(2, Integer.getInteger("eve.guiHistory", 1000));
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Message> conversation;
     @FXML
     private TextField userInput;
     @FXML
@@ -26,20 +47,30 @@ public class MainWindow extends AnchorPane {
     private Image userImage;
     private Image eveImage;
 
+    private final ObservableList<Message> messages = FXCollections.observableArrayList();
+
+    /** Runs commands off the FX thread, one at a time and in order. */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "eve-commands");
+        t.setDaemon(true);
+        return t;
+    });
+
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
-
         // Optional debug logs
         System.out.println("Classpath root -> " + getClass().getResource("/"));
         System.out.println("Check /images/cat1.PNG -> " + getClass().getResource("/images/cat1.PNG"));
         System.out.println("Check /images/cat.PNG -> " + getClass().getResource("/images/cat.PNG"));
-        System.out.println("Check /view/DialogBox.fxml -> " + getClass().getResource("/view/DialogBox.fxml"));
         System.out.println("Check /view/MainWindow.fxml -> " + getClass().getResource("/view/MainWindow.fxml"));
 
         // Load user and Eve image from resources
         userImage = new Image(this.getClass().getResourceAsStream("/images/cat1.PNG"));
         eveImage = new Image(this.getClass().getResourceAsStream("/images/cat.PNG"));
+
+        conversation.setItems(messages);
+        conversation.setFocusTraversable(false);
+        conversation.setCellFactory(list -> new DialogCell(userImage, eveImage));
     }
 
     /** Injects the Eve instance */
@@ -48,15 +79,76 @@ public class MainWindow extends AnchorPane {
     }
 
     /**
-     * Handles user input, shows user and Eve dialog boxes, and clears input.
+     * Handles user input: shows the user's message and a pending reply,
+     * clears the input and sends the command to the worker. The pending reply
+     * is replaced once the command has run.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = eve.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getEveDialog(response, eveImage));
+        Message reply = Message.pending();
+        messages.addAll(Message.fromUser(input), reply);
+        trimHistory();
+        conversation.scrollTo(messages.size() - 1);
         userInput.clear();
+        worker.execute(() -> {
+            Message response;
+            try {
+                response = respond(input);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                response = Message.fromEve("Sorry, something went wrong: " + e.getMessage());
+            }
+            Message done = response;
+            Platform.runLater(() -> resolve(reply, done));
+        });
+    }
+
+    /**
+     * Runs a command on the worker. The whole list is passed on as a
+     * snapshot for the table to read as it scrolls, rather than rendered.
+     */
+    private Message respond(String input) {
+        List<Task> listing = eve.fullListing(input);
+        if (listing == null) {
+            return Message.fromEve(eve.getResponse(input));
+        }
+        int n = listing.size();
+        return n == 0
+                ? Message.fromEve("No tasks yet.")
+                : Message.listing("Here are the " + n + (n == 1 ? " task" : " tasks") + " in your list:", listing);
+    }
+
+    /** Replaces a pending reply, unless it has already been dropped from the history. */
+    private void resolve(Message pending, Message reply) {
+        int i = messages.lastIndexOf(pending);
+        if (i < 0) {
+            return;
+        }
+        messages.set(i, reply);
+        if (i == messages.size() - 1) {
+            conversation.scrollTo(i);
+        }
+    }
+
+    /** Drops the oldest messages beyond {@link #HISTORY_LIMIT}. */
+    private void trimHistory() {
+        int excess = messages.size() - HISTORY_LIMIT;
+        if (excess > 0) {
+            messages.remove(0, excess);
+        }
+    }
+
+    /**
+     * Stops accepting commands and waits for the ones already sent to
+     * finish, so that their changes are saved before Eve shuts down.
+     */
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,57 @@
+package eve.gui;
+
+import java.util.List;
+
+import eve.tasks.Task;
+
+/**
+ * One message in the conversation shown by the GUI.
+ * <p>
+ * Messages are immutable; a reply that is still being worked out is shown as
+ * a pending Eve message and replaced once the command has run. A reply that
+ * lists the whole task list carries the tasks themselves, which the view
+ * shows in a table that reads only the rows on screen.
+ */
+public final class Message {
+    /** Who sent a message. */
+    public enum Speaker {
+        USER, EVE
+    }
+
+    public final Speaker speaker;
+    public final String text;
+    /** Whether this is a placeholder for a reply that is not ready yet. */
+    public final boolean pending;
+    /** The tasks to show in a table under the text, or {@code null} for none. */
+    public final List<Task> tasks;
+
+    private Message(Speaker speaker, String text, boolean pending, List<Task> tasks) {
+        this.speaker = speaker;
+        this.text = text;
+        this.pending = pending;
+        this.tasks = tasks;
+    }
+
+    public static Message fromUser(String text) {
+        return new Message(Speaker.USER, text, false, null);
+    }
+
+    public static Message fromEve(String text) {
+        return new Message(Speaker.EVE, text, false, null);
+    }
+
+    /**
+     * Returns an Eve reply that shows tasks in a table.
+     *
+     * @param text  the text above the table
+     * @param tasks the tasks, which must not change afterwards
+     */
+    public static Message listing(String text, List<Task> tasks) {
+        return new Message(Speaker.EVE, text, false, tasks);
+    }
+
+    /** Returns a placeholder for an Eve reply that is not ready yet. */
+    public static Message pending() {
+        return new Message(Speaker.EVE, "...", true, null);
+    }
+}
@@ -0,0 +1,17 @@
+package eve.parser;
+
+/**
+ * Carries out one command and renders the reply shown to the user.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+    /**
+     * Handles a command.
+     *
+     * @param args the arguments after the command keyword, trimmed; empty if none
+     * @return the reply to show the user
+     * @throws EveException if the arguments are invalid or the command cannot
+     *                      be carried out
+     */
+    String handle(String args) throws EveException;
+}
@@ -0,0 +1,54 @@
+package eve.parser;
+
+/**
+ * A line of user input split into its command keyword and arguments.
+ * <p>
+ * The line is scanned once, without regular expressions: leading whitespace
+ * is skipped, the keyword runs up to the next whitespace, and the arguments
+ * are the rest of the line with surrounding whitespace removed. Any character
+ * up to {@code ' '} counts as whitespace, as in {@link String#trim()}.
+ */
+public final class CommandLine {
+    /** The first word, lower-cased. */
+    public final String keyword;
+    /** Everything after the first word, trimmed; empty if none. */
+    public final String args;
+
+    private CommandLine(String keyword, String args) {
+        this.keyword = keyword;
+        this.args = args;
+    }
+
+    /**
+     * Splits a line of input.
+     *
+     * @param input the line entered by the user
+     * @return the split line, or {@code null} if the input is {@code null} or blank
+     */
+    public static CommandLine parse(String input) {
+        if (input == null) {
+            return null;
+        }
+        int len = input.length();
+        int start = 0;
+        while (start < len && input.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start == len) {
+            return null;
+        }
+        int end = start;
+        while (end < len && input.charAt(end) > ' ') {
+            end++;
+        }
+        int argStart = end;
+        while (argStart < len && input.charAt(argStart) <= ' ') {
+            argStart++;
+        }
+        int argEnd = len;
+        while (argEnd > argStart && input.charAt(argEnd - 1) <= ' ') {
+            argEnd--;
+        }
+        return new CommandLine(input.substring(start, end).toLowerCase(), input.substring(argStart, argEnd));
+    }
+}
@@ -0,0 +1,71 @@
+package eve.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps command keywords to their {@link CommandHandler}s and dispatches
+ * lines of user input to them.
+ * <p>
+ * The CLI and the GUI both send input through the same registry, so a new
+ * command only needs to be registered once.
+ */
+public final class CommandRegistry {
+    private final Map<String, CommandHandler> handlers = new HashMap<>();
+
+    /**
+     * Registers the handler for a keyword.
+     *
+     * @param keyword the command keyword, matched case-insensitively
+     * @param handler the handler to run
+     * @throws IllegalArgumentException if the keyword is blank, contains
+     *                                  whitespace or is already registered
+     */
+    public void register(String keyword, CommandHandler handler) {
+        CommandLine line = CommandLine.parse(keyword);
+        if (line == null || !line.args.isEmpty()) {
+            throw new IllegalArgumentException("Command keyword must be a single word: \"" + keyword + "\"");
+        }
+        if (handlers.putIfAbsent(line.keyword, handler) != null) {
+            throw new IllegalArgumentException("Command already registered: " + line.keyword);
+        }
+    }
+
+    /**
+     * Returns whether a handler is registered for a keyword.
+     *
+     * @param keyword the lower-cased command keyword
+     * @return {@code true} if the keyword is registered
+     */
+    public boolean contains(String keyword) {
+        return handlers.containsKey(keyword);
+    }
+
+    /**
+     * Runs the handler for a line of input.
+     *
+     * @param input the line entered by the user
+     * @return the handler's reply, or {@code null} if the input is blank or
+     *         its keyword is not registered
+     * @throws EveException if the handler rejects the command
+     */
+    public String dispatch(String input) throws EveException {
+        return dispatch(CommandLine.parse(input));
+    }
+
+    /**
+     * Runs the handler for a line of input that has already been split.
+     *
+     * @param line the split line, or {@code null} for blank input
+     * @return the handler's reply, or {@code null} if the line is
+     *         {@code null} or its keyword is not registered
+     * @throws EveException if the handler rejects the command
+     */
+    public String dispatch(CommandLine line) throws EveException {
+        if (line == null) {
+            return null;
+        }
+        CommandHandler handler = handlers.get(line.keyword);
+        return handler == null ? null : handler.handle(line.args);
+    }
+}
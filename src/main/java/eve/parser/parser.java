@@ -1,68 +1,25 @@
 package eve.parser;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.BitSet;
 import java.util.Optional;
 
 import eve.util.DateTimeUtil;
 
 /**
- * Utility class responsible for parsing user input strings into commands,
- * arguments, and structured values such as task descriptions or date/time.
+ * Utility class responsible for parsing command arguments into structured
+ * values such as task descriptions or date/time. Command keywords are split
+ * off by {@link CommandLine} and looked up in a {@link CommandRegistry}.
  * <p>
  * The {@code Parser} translates raw user input into more structured
- * representations (enums, indices, or parts objects) that the main
- * application logic can handle.
+ * representations (indices or parts objects) that the main application
+ * logic can handle.
  */
 public final class parser {
     private parser() {
     }
 
-    /**
-     * Enumerates the set of supported commands that the chatbot recognizes.
-     */
-    public enum Command {
-        HELP, LIST, TODO, FIND, DEADLINE, EVENT, MARK, UNMARK, DELETE, BYE
-    }
-
-    /**
-     * Parses the first word of the given input into a {@link Command}.
-     *
-     * @param full the full input string entered by the user
-     * @return the parsed {@link Command}, or {@code null} if unknown
-     */
-    public static Command parseCommand(String full) {
-        if (full == null)
-            return null;
-        String trimmed = full.trim();
-        if (trimmed.isEmpty())
-            return null;
-        String head = trimmed.split("\\s+", 2)[0].toLowerCase();
-        switch (head) {
-            case "help":
-                return Command.HELP;
-            case "list":
-                return Command.LIST;
-            case "todo":
-                return Command.TODO;
-            case "deadline":
-                return Command.DEADLINE;
-            case "event":
-                return Command.EVENT;
-            case "mark":
-                return Command.MARK;
-            case "unmark":
-                return Command.UNMARK;
-            case "delete":
-                return Command.DELETE;
-            case "bye":
-                return Command.BYE;
-            case "find":
-                return Command.FIND;
-            default:
-                return null;
-        }
-    }
-
     /**
      * Returns the argument portion of the input (everything after the first token).
      *
@@ -70,8 +27,8 @@ public final class parser {
      * @return the substring after the first token, trimmed; empty if none
      */
     public static String args(String full) {
-        String[] parts = full.trim().split("\\s+", 2);
-        return parts.length > 1 ? parts[1].trim() : "";
+        CommandLine line = CommandLine.parse(full);
+        return line == null ? "" : line.args;
     }
 
     /**
@@ -88,21 +45,87 @@ public final class parser {
     }
 
     /**
-     * Parses a numeric index for mark/unmark commands.
+     * Parses the task numbers given to {@code mark}, {@code unmark} or
+     * {@code delete}: a comma-separated list of numbers and inclusive ranges,
+     * such as {@code 3,7,10-200}.
+     * <p>
+     * The arguments are read in one pass and every number is checked against
+     * the list size, so an overly long range is rejected before anything is
+     * expanded.
      *
-     * @param args   the argument string, expected to be a number
-     * @param toDone whether this is for mark (true) or unmark (false),
-     *               used to customize the error message
-     * @return the parsed integer index
-     * @throws EveException if the argument is missing or not a valid number
+     * @param args    the argument string after the command keyword
+     * @param command the command keyword, used in error messages
+     * @param count   the number of tasks in the list
+     * @return the zero-based indexes, ascending and without duplicates
+     * @throws EveException if the arguments are missing or malformed, or a
+     *                      number is outside {@code 1..count}
      */
-    public static int parseIndex(String args, boolean toDone) throws EveException {
+    public static int[] parseTaskIndexes(String args, String command, int count) throws EveException {
         if (args == null || args.trim().isEmpty())
-            throw new EveException(
-                    "Please provide a task number (e.g., \"" + (toDone ? "mark 2" : "unmark 2") + "\").");
-        if (!args.matches("\\d+"))
-            throw new EveException("Use a number only, e.g., \"" + (toDone ? "mark 2" : "unmark 2") + "\".");
-        return Integer.parseInt(args);
+            throw new EveException("Please provide a task number (e.g., \"" + command + " 2\" or \""
+                    + command + " 1-3,5\").");
+        BitSet picked = new BitSet(count);
+        int len = args.length();
+        int pos = 0;
+        while (true) {
+            pos = skipSpaces(args, pos);
+            int startAt = pos;
+            long from = 0;
+            while (pos < len && isDigit(args.charAt(pos)) && from <= count)
+                from = from * 10 + (args.charAt(pos++) - '0');
+            pos = skipDigits(args, pos);
+            if (pos == startAt)
+                throw badTaskNumbers(command);
+            long to = from;
+            pos = skipSpaces(args, pos);
+            if (pos < len && args.charAt(pos) == '-') {
+                pos = skipSpaces(args, pos + 1);
+                int toAt = pos;
+                to = 0;
+                while (pos < len && isDigit(args.charAt(pos)) && to <= count)
+                    to = to * 10 + (args.charAt(pos++) - '0');
+                pos = skipDigits(args, pos);
+                if (pos == toAt)
+                    throw badTaskNumbers(command);
+                pos = skipSpaces(args, pos);
+            }
+            if (from > to)
+                throw new EveException("The range " + args.substring(startAt, pos).trim()
+                        + " is backwards. Write the smaller number first.");
+            if (from < 1 || to > count)
+                throw new EveException("Please provide a valid task number (1-" + count + ").");
+            picked.set((int) from - 1, (int) to);
+            if (pos == len)
+                break;
+            if (args.charAt(pos) != ',')
+                throw badTaskNumbers(command);
+            pos++;
+        }
+        int[] idx0s = new int[picked.cardinality()];
+        for (int k = 0, i = picked.nextSetBit(0); i >= 0; i = picked.nextSetBit(i + 1))
+            idx0s[k++] = i;
+        return idx0s;
+    }
+
+    private static EveException badTaskNumbers(String command) {
+        return new EveException("Use task numbers only, e.g., \"" + command + " 3\" or \""
+                + command + " 3,7,10-20\".");
+    }
+
+    private static int skipSpaces(String s, int pos) {
+        while (pos < s.length() && s.charAt(pos) == ' ')
+            pos++;
+        return pos;
+    }
+
+    private static int skipDigits(String s, int pos) {
+        while (pos < s.length() && isDigit(s.charAt(pos)))
+            pos++;
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     /** Parse 'find <keyword>' (requires non-blank). */
@@ -115,19 +138,110 @@ public final class parser {
         return q;
     }
 
+    /** Number of deadlines shown by {@code upcoming} when no count is given. */
+    public static final int DEFAULT_UPCOMING = 5;
+
+    /**
+     * Parses the optional count for the {@code upcoming} command.
+     *
+     * @param args the argument string, empty or a positive number
+     * @return the number of deadlines to show
+     * @throws EveException if the argument is not a positive number
+     */
+    public static int parseUpcoming(String args) throws EveException {
+        if (args == null || args.trim().isEmpty())
+            return DEFAULT_UPCOMING;
+        String n = args.trim();
+        if (!n.matches("\\d{1,9}") || Integer.parseInt(n) == 0)
+            throw new EveException("Use a positive number only, e.g., \"upcoming 5\".");
+        return Integer.parseInt(n);
+    }
+
+    /** Number of tasks shown by {@code list page} when no size is given. */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
     /**
-     * Parses a numeric index for the delete command.
+     * Parses the arguments for the {@code list} command: nothing for the
+     * whole list, or {@code page N [size M]} for one page of it.
      *
-     * @param args the argument string, expected to be a number
-     * @return the parsed integer index
-     * @throws EveException if the argument is missing or not a valid number
+     * @param args the argument string
+     * @return the requested page, or {@code null} for the whole list
+     * @throws EveException if the arguments are not in either form, or a
+     *                      number is not positive
      */
-    public static int parseDeleteIndex(String args) throws EveException {
+    public static PageParts parseList(String args) throws EveException {
         if (args == null || args.trim().isEmpty())
-            throw new EveException("Use a number only, e.g., \"delete 3\".");
-        if (!args.matches("\\d+"))
-            throw new EveException("Use a number only, e.g., \"delete 3\".");
-        return Integer.parseInt(args);
+            return null;
+        String[] words = args.trim().toLowerCase().split("\\s+");
+        boolean sized = words.length == 4 && words[2].equals("size");
+        if (!words[0].equals("page") || (words.length != 2 && !sized)
+                || !isPositive(words[1]) || (sized && !isPositive(words[3])))
+            throw new EveException("Use \"list\" or \"list page N [size M]\" with positive numbers, "
+                    + "e.g., \"list page 2 size 50\".");
+        int size = sized ? Integer.parseInt(words[3]) : DEFAULT_PAGE_SIZE;
+        return new PageParts(Integer.parseInt(words[1]), size);
+    }
+
+    private static boolean isPositive(String n) {
+        return n.matches("\\d{1,9}") && Integer.parseInt(n) > 0;
+    }
+
+    /**
+     * Parses the date for the {@code due} command. Any format accepted for
+     * deadlines may be used; only the date part is kept.
+     *
+     * @param args the argument string, expected to be a date
+     * @return the parsed date
+     * @throws EveException if the date is missing or cannot be parsed
+     */
+    public static LocalDate parseDue(String args) throws EveException {
+        return parseDate(args, "due");
+    }
+
+    /**
+     * Parses the date for the {@code free} command. Any format accepted for
+     * deadlines may be used; only the date part is kept.
+     *
+     * @param args the argument string, expected to be a date
+     * @return the parsed date
+     * @throws EveException if the date is missing or cannot be parsed
+     */
+    public static LocalDate parseFree(String args) throws EveException {
+        return parseDate(args, "free");
+    }
+
+    private static LocalDate parseDate(String args, String command) throws EveException {
+        if (args == null || args.trim().isEmpty())
+            throw new EveException("Oops, I need more info. Usage: " + command + " <date>");
+        Optional<LocalDateTime> d = DateTimeUtil.parseDateTime(args);
+        if (d.isEmpty())
+            throw new EveException("Sorry, I don't understand that date. Try e.g. \"" + command + " 2019-12-02\".");
+        return d.get().toLocalDate();
+    }
+
+    /**
+     * Parses arguments for the {@code clashes} command.
+     * <p>
+     * Expected format: {@code <start> /to <end>}, where both times must be
+     * in a format accepted for deadlines.
+     *
+     * @param args the raw argument string after the "clashes" keyword
+     * @return a {@link RangeParts} containing the parsed start and end
+     * @throws EveException if a time is missing or cannot be parsed, or the
+     *                      start is after the end
+     */
+    public static RangeParts parseClashes(String args) throws EveException {
+        String[] parts = args.trim().split("(?i)\\s*/to\\s+", 2);
+        if (parts.length < 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty())
+            throw new EveException("Oops, I need more info. Usage: clashes <start> /to <end>");
+        Optional<LocalDateTime> f = DateTimeUtil.parseDateTime(parts[0]);
+        Optional<LocalDateTime> t = DateTimeUtil.parseDateTime(parts[1]);
+        if (f.isEmpty() || t.isEmpty())
+            throw new EveException("Sorry, I don't understand that time. Try e.g. "
+                    + "\"clashes 2019-12-02 1400 /to 2019-12-02 1600\".");
+        if (f.get().isAfter(t.get()))
+            throw new EveException("Sorry, that time range looks invalid: start is after end.");
+        return new RangeParts(f.get(), t.get());
     }
 
     /**
@@ -136,7 +250,8 @@ public final class parser {
      * Expected format: {@code <description> /by <when>}
      *
      * @param args the raw argument string after the "deadline" keyword
-     * @return a {@link DeadlineParts} containing description and time string
+     * @return a {@link DeadlineParts} containing description, time string
+     *         and the parsed time
      * @throws EveException if the format is invalid or missing parts
      */
     public static DeadlineParts parseDeadline(String args) throws EveException {
@@ -147,7 +262,7 @@ public final class parser {
         String when = parts[1].trim();
         if (desc.isEmpty() || when.isEmpty())
             throw new EveException("Oops, I need more info. Usage: deadline <description> /by <when>");
-        return new DeadlineParts(desc, when);
+        return new DeadlineParts(desc, when, DateTimeUtil.parseDateTime(when).orElse(null));
     }
 
     /**
@@ -156,7 +271,8 @@ public final class parser {
      * Expected format: {@code <description> /from <start> /to <end>}
      *
      * @param args the raw argument string after the "event" keyword
-     * @return an {@link EventParts} containing description, start, and end strings
+     * @return an {@link EventParts} containing description, start and end
+     *         strings, and the parsed start and end
      * @throws EveException if the format is invalid or the start is after end
      */
     public static EventParts parseEvent(String args) throws EveException {
@@ -173,31 +289,40 @@ public final class parser {
             throw new EveException("Oops, I need more info. Usage: event <description> /from <start> /to <end>");
 
         // If both parse, validate range
-        Optional<LocalDateTime> f = DateTimeUtil.parseDateTime(from);
-        Optional<LocalDateTime> t = DateTimeUtil.parseDateTime(to);
-        if (f.isPresent() && t.isPresent() && f.get().isAfter(t.get()))
+        LocalDateTime f = DateTimeUtil.parseDateTime(from).orElse(null);
+        LocalDateTime t = DateTimeUtil.parseDateTime(to).orElse(null);
+        if (f != null && t != null && f.isAfter(t))
             throw new EveException("Sorry, that time range looks invalid: start is after end.");
 
-        return new EventParts(desc, from, to);
+        return new EventParts(desc, from, to, f, t);
     }
 
     /**
-     * Simple value object holding parts of a parsed deadline command.
+     * Immutable parsed deadline command. The due time is parsed once here and
+     * handed to {@link eve.tasks.Deadline#Deadline(DeadlineParts)}.
      */
     public static final class DeadlineParts {
         /** The description of the task. */
         public final String desc;
         /** The deadline string provided by the user. */
         public final String when;
+        /** The parsed deadline, or {@code null} if {@link #when} is not a recognized date. */
+        public final LocalDateTime whenDT;
 
         public DeadlineParts(String d, String w) {
+            this(d, w, DateTimeUtil.parseDateTime(w).orElse(null));
+        }
+
+        public DeadlineParts(String d, String w, LocalDateTime wDT) {
             this.desc = d;
             this.when = w;
+            this.whenDT = wDT;
         }
     }
 
     /**
-     * Simple value object holding parts of a parsed event command.
+     * Immutable parsed event command. The start and end are parsed once here
+     * and handed to {@link eve.tasks.Event#Event(EventParts)}.
      */
     public static final class EventParts {
         /** The description of the event. */
@@ -206,11 +331,51 @@ public final class parser {
         public final String from;
         /** The end time string provided by the user. */
         public final String to;
+        /** The parsed start, or {@code null} if {@link #from} is not a recognized date. */
+        public final LocalDateTime fromDT;
+        /** The parsed end, or {@code null} if {@link #to} is not a recognized date. */
+        public final LocalDateTime toDT;
 
         public EventParts(String d, String f, String t) {
+            this(d, f, t, DateTimeUtil.parseDateTime(f).orElse(null), DateTimeUtil.parseDateTime(t).orElse(null));
+        }
+
+        public EventParts(String d, String f, String t, LocalDateTime fDT, LocalDateTime tDT) {
             this.desc = d;
             this.from = f;
             this.to = t;
+            this.fromDT = fDT;
+            this.toDT = tDT;
+        }
+    }
+
+    /**
+     * Simple value object holding a page requested with {@code list page}.
+     */
+    public static final class PageParts {
+        /** The one-based page number. */
+        public final int page;
+        /** The number of tasks per page. */
+        public final int size;
+
+        public PageParts(int page, int size) {
+            this.page = page;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Simple value object holding a parsed time range.
+     */
+    public static final class RangeParts {
+        /** The start of the range. */
+        public final LocalDateTime from;
+        /** The end of the range. */
+        public final LocalDateTime to;
+
+        public RangeParts(LocalDateTime f, LocalDateTime t) {
+            this.from = f;
+            this.to = t;
         }
     }
 }
@@ -0,0 +1,170 @@
+package eve.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import eve.Eve;
+import eve.parser.CommandLine;
+
+/**
+ * Serves {@link Eve#getResponse(String)} over HTTP on the loopback
+ * interface, so that scripts and other programs can use Eve without the
+ * console or the GUI.
+ * <p>
+ * Each request is a {@code POST /command} whose body is one command line,
+ * encoded as UTF-8; the reply is the rendered response as plain text.
+ * {@code POST /tenants/<tenant>/command} does the same for the task list of
+ * one tenant, kept by a {@link TenantManager}; {@code /command} uses the
+ * {@linkplain TenantManager#DEFAULT_TENANT default tenant}. Requests are read
+ * and answered on a pool of worker threads, and each {@link Eve} runs one
+ * command at a time, so concurrent clients always see a task list as some
+ * sequence of whole commands. {@code batch} and {@code bye} are refused with
+ * status 400, since a batch would span every client and {@code bye} would
+ * close the storage under them.
+ */
+public final class EveServer {
+    /** Default number of worker threads, from the {@code eve.serverThreads} system property. */
+    public static final int DEFAULT_THREADS =
+            Math.max(1, Integer.getInteger("eve.serverThreads", 4 * Runtime.getRuntime().availableProcessors()));
+
+    static {
+        // Replies are small and written as headers then body; with Nagle's
+        // algorithm on, each reply waits for the client's delayed ACK (~40 ms).
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /** Largest request body accepted, in bytes. */
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final TenantManager tenants;
+    private final HttpServer http;
+    private final ExecutorService workers;
+
+    /**
+     * Creates a server bound to a port on the loopback interface. Call
+     * {@link #start()} to accept requests.
+     *
+     * @param tenants the task lists to serve
+     * @param port    the port, or {@code 0} for any free port
+     * @param threads the number of worker threads
+     * @throws IOException if the port cannot be bound
+     */
+    public EveServer(TenantManager tenants, int port, int threads) throws IOException {
+        this.tenants = tenants;
+        this.http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> new Thread(r, "eve-http-" + n.incrementAndGet()));
+        http.setExecutor(workers);
+        http.createContext("/command", this::handle);
+        http.createContext("/tenants/", this::handle);
+    }
+
+    /** Starts accepting requests in the background. */
+    public void start() {
+        http.start();
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the port
+     */
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for the ones in flight,
+     * and evicts every tenant so that every change is on disk.
+     */
+    public void stop() {
+        http.stop(1);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tenants.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                reply(exchange, 405, "Send commands with POST /command.");
+                return;
+            }
+            String tenant = tenantOf(exchange.getRequestURI().getPath());
+            if (tenant == null) {
+                reply(exchange, 404, "Use /command or /tenants/<tenant>/command, where <tenant> is 1-64 "
+                        + "lower-case letters, digits, '_' or '-'.");
+                return;
+            }
+            String input = readBody(exchange.getRequestBody());
+            if (input == null) {
+                reply(exchange, 413, "Commands are limited to " + MAX_BODY + " bytes.");
+                return;
+            }
+            CommandLine line = CommandLine.parse(input);
+            if (line != null && (line.keyword.equals("batch") || line.keyword.equals("bye"))) {
+                reply(exchange, 400, "\"" + line.keyword + "\" is not available in server mode.");
+                return;
+            }
+            String reply;
+            try {
+                reply = tenants.getResponse(tenant, input);
+            } catch (RuntimeException e) {
+                System.out.println("Warning: command failed for tenant " + tenant + ": " + e);
+                reply(exchange, 500, "Eve could not run that command.");
+                return;
+            }
+            reply(exchange, 200, reply);
+        }
+    }
+
+    /** Returns the tenant a request path is for, or {@code null} if the path is not a command path. */
+    private static String tenantOf(String path) {
+        if (path.equals("/command")) {
+            return TenantManager.DEFAULT_TENANT;
+        }
+        String prefix = "/tenants/";
+        String suffix = "/command";
+        if (!path.startsWith(prefix) || !path.endsWith(suffix) || path.length() <= prefix.length() + suffix.length()) {
+            return null;
+        }
+        String tenant = path.substring(prefix.length(), path.length() - suffix.length());
+        return TenantManager.isValidName(tenant) ? tenant : null;
+    }
+
+    /** Reads the request body, or returns {@code null} if it is too long. */
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) {
+            return null;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static void reply(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
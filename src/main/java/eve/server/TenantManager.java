@@ -0,0 +1,289 @@
+package eve.server;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+import eve.Eve;
+
+/**
+ * Keeps a separate task list for each tenant, each in its own data file
+ * {@code <dataDir>/<tenant>.txt}.
+ * <p>
+ * A tenant's {@link Eve} is loaded on its first request and kept in memory
+ * while it is in use. Tenants idle for longer than the idle timeout are
+ * evicted by a background sweep, and whenever the estimated memory of the
+ * loaded tenants passes the budget, the least recently used ones are evicted
+ * until it fits again. Evicting a tenant flushes its changes to disk first,
+ * so it can be loaded again at any time. Requests for a tenant that is being
+ * evicted wait for the flush and then load it afresh.
+ * <p>
+ * The defaults come from the {@code eve.tenantIdle} (in seconds) and
+ * {@code eve.tenantMemory} (in bytes) system properties.
+ */
+public final class TenantManager {
+    /** Default idle time after which a tenant is evicted, in seconds. */
+    public static final long DEFAULT_IDLE_SECONDS = Math.max(1, Long.getLong("eve.tenantIdle", 300));
+    /** Default bound on the estimated memory of the loaded tenants, in bytes. */
+    public static final long DEFAULT_MEMORY = Math.max(0, Long.getLong("eve.tenantMemory", 64L << 20));
+    /** The tenant served on {@code /command}, whose data file is the usual {@code data/eve.txt}. */
+    public static final String DEFAULT_TENANT = "eve";
+
+    /** Rough memory held by a loaded tenant with no tasks: its indexes, buffers and undo history. */
+    static final long TENANT_BYTES = 16 * 1024;
+    /** Rough memory held per task, including its index entries. */
+    static final long TASK_BYTES = 400;
+
+    private static final Pattern NAME = Pattern.compile("[a-z0-9_-]{1,64}");
+
+    /** One loaded tenant. */
+    private static final class Tenant {
+        final String name;
+        final Eve eve;
+        volatile long lastUsed;
+        /** Estimated memory, as last added to {@link #bytes}. */
+        long estimate;
+        /** Set, under the tenant's lock, once it has been flushed and must not be used. */
+        boolean evicted;
+
+        Tenant(String name, Eve eve) {
+            this.name = name;
+            this.eve = eve;
+        }
+    }
+
+    private final Path dataDir;
+    private final long idleNanos;
+    private final long maxBytes;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+    /**
+     * The loaded tenants from least to most recently used, guarded by itself.
+     * A tenant is moved to the end under its own lock while it is not evicted.
+     */
+    private final LinkedHashMap<String, Tenant> recent = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Creates a manager with the default idle timeout and memory budget.
+     *
+     * @param dataDir the directory holding the tenants' data files
+     */
+    public TenantManager(Path dataDir) {
+        this(dataDir, TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_SECONDS), DEFAULT_MEMORY, System::nanoTime);
+    }
+
+    /**
+     * Creates a manager.
+     *
+     * @param dataDir   the directory holding the tenants' data files
+     * @param idleNanos how long a tenant may go unused before it is evicted
+     * @param maxBytes  the estimated memory the loaded tenants may hold
+     * @param clock     the time source, in nanoseconds
+     */
+    public TenantManager(Path dataDir, long idleNanos, long maxBytes, LongSupplier clock) {
+        this.dataDir = dataDir;
+        this.idleNanos = idleNanos;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns whether a string can be used as a tenant name: 1 to 64
+     * lower-case letters, digits, {@code _} or {@code -}.
+     *
+     * @param tenant the name to check
+     * @return {@code true} if the name is valid
+     */
+    public static boolean isValidName(String tenant) {
+        return tenant != null && NAME.matcher(tenant).matches();
+    }
+
+    /**
+     * Runs one command for a tenant, loading the tenant first if needed.
+     *
+     * @param tenant the tenant name
+     * @param input  the line of user input
+     * @return the rendered reply
+     * @throws IllegalArgumentException if the tenant name is not valid
+     */
+    public String getResponse(String tenant, String input) {
+        if (!isValidName(tenant)) {
+            throw new IllegalArgumentException("Invalid tenant name: " + tenant);
+        }
+        while (true) {
+            Tenant t = tenants.get(tenant);
+            if (t == null) {
+                t = tenants.computeIfAbsent(tenant, this::load);
+            }
+            String reply;
+            synchronized (t) {
+                if (t.evicted) {
+                    continue;
+                }
+                t.lastUsed = clock.getAsLong();
+                synchronized (recent) {
+                    recent.put(t.name, t);
+                }
+                reply = t.eve.getResponse(input);
+                long estimate = estimate(t.eve.taskCount());
+                bytes.addAndGet(estimate - t.estimate);
+                t.estimate = estimate;
+            }
+            if (bytes.get() > maxBytes) {
+                evictOverBudget(t);
+            }
+            return reply;
+        }
+    }
+
+    /**
+     * Evicts every tenant that has not been used for longer than the idle
+     * timeout.
+     *
+     * @return the number of tenants evicted
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (Tenant t : tenants.values()) {
+            if (now - t.lastUsed > idleNanos && evict(t)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Starts a background thread that evicts idle tenants several times per
+     * idle timeout.
+     */
+    public synchronized void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "eve-tenant-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(TimeUnit.SECONDS.toNanos(1), idleNanos / 4);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /** Stops the sweeper and evicts every tenant, flushing all changes. */
+    public void shutdown() {
+        synchronized (this) {
+            if (sweeper != null) {
+                sweeper.shutdownNow();
+                sweeper = null;
+            }
+        }
+        for (Tenant t : tenants.values()) {
+            evict(t);
+        }
+    }
+
+    /**
+     * Returns the number of tenants in memory.
+     *
+     * @return the number of loaded tenants
+     */
+    public int loaded() {
+        return tenants.size();
+    }
+
+    /**
+     * Returns the estimated memory held by the loaded tenants.
+     *
+     * @return the estimate, in bytes
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the number of times a tenant was loaded from disk.
+     *
+     * @return the load count
+     */
+    public long loads() {
+        return loads.get();
+    }
+
+    /**
+     * Returns the number of times a tenant was evicted.
+     *
+     * @return the eviction count
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private Tenant load(String name) {
+        Tenant t = new Tenant(name, new Eve(dataDir.resolve(name + ".txt")));
+        t.lastUsed = clock.getAsLong();
+        t.estimate = estimate(t.eve.taskCount());
+        bytes.addAndGet(t.estimate);
+        loads.incrementAndGet();
+        return t;
+    }
+
+    /**
+     * Evicts the least recently used tenants, other than the one just used,
+     * until the loaded tenants fit in the memory budget again.
+     */
+    private void evictOverBudget(Tenant keep) {
+        while (bytes.get() > maxBytes) {
+            Tenant oldest = null;
+            synchronized (recent) {
+                for (Tenant t : recent.values()) {
+                    if (t != keep) {
+                        oldest = t;
+                        break;
+                    }
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            evict(oldest);
+        }
+    }
+
+    /**
+     * Flushes a tenant and removes it. The tenant is only removed from the
+     * map after its flush, so that a new load always sees its changes.
+     *
+     * @return {@code true} if this call evicted the tenant
+     */
+    private boolean evict(Tenant t) {
+        synchronized (t) {
+            if (t.evicted) {
+                return false;
+            }
+            t.evicted = true;
+            t.eve.shutdown();
+            tenants.remove(t.name, t);
+            synchronized (recent) {
+                recent.remove(t.name, t);
+            }
+            bytes.addAndGet(-t.estimate);
+        }
+        evictions.incrementAndGet();
+        return true;
+    }
+
+    private static long estimate(int tasks) {
+        return TENANT_BYTES + tasks * TASK_BYTES;
+    }
+}
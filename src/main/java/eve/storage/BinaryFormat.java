@@ -0,0 +1,140 @@
+package eve.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
+
+import eve.tasks.Task;
+
+/**
+ * Reads and writes the compact binary data file format.
+ * <p>
+ * A file starts with the magic bytes {@code EVEB}, a version byte and the
+ * journal sequence number the snapshot contains (a {@code long}). Each task
+ * then follows as:
+ *
+ * <pre>
+ *   flags        1 byte: bits 0-1 type id (0 = T, 1 = D, 2 = E), bit 2 done,
+ *                        bit 3 first time is raw text, bit 4 second time is raw text
+ *   description  varint length + UTF-8 bytes
+ *   times        0 (T), 1 (D) or 2 (E) times, each either an epoch-minute
+ *                long (UTC) or, if flagged raw, varint length + UTF-8 bytes
+ * </pre>
+ *
+ * Times that cannot be stored in whole minutes are kept as their ISO text.
+ * The per-task layout is produced by the registered {@link TaskCodec}s.
+ */
+final class BinaryFormat {
+    /** Magic bytes at the start of every binary data file. */
+    static final byte[] MAGIC = {'E', 'V', 'E', 'B'};
+    /** Current format version. */
+    static final int VERSION = 1;
+    /** Bytes before the first task: magic, version and sequence number. */
+    static final int HEADER_BYTES = MAGIC.length + 1 + Long.BYTES;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * Returns whether the given file prefix starts with the binary magic.
+     *
+     * @param head the first bytes of a file
+     * @param len  number of valid bytes in {@code head}
+     * @return {@code true} if the file is in the binary format
+     */
+    static boolean isBinary(byte[] head, int len) {
+        return len >= MAGIC.length && Arrays.equals(head, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Writes a complete binary snapshot. Tasks are encoded by their
+     * {@link TaskCodec} into one reusable buffer that is drained whenever it
+     * fills up; a task larger than the buffer gets a bigger one.
+     *
+     * @param tasks the tasks to write
+     * @param upTo  the journal sequence number the snapshot contains
+     * @param out   the channel to write to
+     * @throws IOException if writing fails
+     */
+    static void write(List<Task> tasks, long upTo, WritableByteChannel out) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+        buf.put(MAGIC).put((byte) VERSION).putLong(upTo);
+        for (Task t : tasks) {
+            int mark = buf.position();
+            try {
+                TaskCodecs.encode(t, buf);
+            } catch (BufferOverflowException e) {
+                buf.position(mark);
+                drain(buf, out);
+                buf = encodeAlone(t, buf);
+            }
+        }
+        drain(buf, out);
+    }
+
+    /**
+     * Encodes a task into the empty buffer, replacing it with larger ones
+     * until the task fits.
+     *
+     * @param t   the task to encode
+     * @param buf the empty buffer to reuse
+     * @return the buffer holding the encoded task
+     */
+    private static ByteBuffer encodeAlone(Task t, ByteBuffer buf) {
+        while (true) {
+            buf.clear();
+            try {
+                TaskCodecs.encode(t, buf);
+                return buf;
+            } catch (BufferOverflowException e) {
+                buf = ByteBuffer.allocate(buf.capacity() * 2);
+            }
+        }
+    }
+
+    /** Writes out the buffer's contents and clears it. */
+    private static void drain(ByteBuffer buf, WritableByteChannel out) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /**
+     * Reads a complete binary snapshot.
+     *
+     * @param in  the file contents, positioned at the magic bytes
+     * @param out the list to add the loaded tasks to
+     * @return the journal sequence number the snapshot contains
+     * @throws IOException if the file is truncated, malformed or of an
+     *                     unsupported version
+     */
+    static long read(ByteBuffer in, List<Task> out) throws IOException {
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!isBinary(magic, magic.length)) {
+                throw new IOException("Not a binary data file");
+            }
+            int version = in.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported data file version: " + version);
+            }
+            long upTo = in.getLong();
+            while (in.hasRemaining()) {
+                out.add(TaskCodecs.decode(in));
+            }
+            return upTo;
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Corrupted data file: truncated task");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted data file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package eve.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.time.LocalDateTime;
+
+import eve.tasks.Deadline;
+import eve.util.DateTimeUtil;
+
+/**
+ * Codec for {@link Deadline}: {@code D | 0 | return book | 2019-12-02T00:00}.
+ * The due time is stored in ISO form if it was parsed, or as the raw text.
+ */
+final class DeadlineCodec implements TaskCodec<Deadline> {
+    @Override
+    public Class<Deadline> type() {
+        return Deadline.class;
+    }
+
+    @Override
+    public char tag() {
+        return 'D';
+    }
+
+    @Override
+    public int typeId() {
+        return 1;
+    }
+
+    @Override
+    public void encode(Deadline task, CharBuffer out) {
+        TaskCodecs.putHead(tag(), task, out);
+        out.put(task.getDescription()).put(" | ");
+        if (task.getWhen() != null) {
+            TaskCodecs.putIso(task.getWhen(), out);
+        } else {
+            out.put(task.getByToken());
+        }
+    }
+
+    @Override
+    public Deadline decode(CharSequence line, int[] bounds, int fields) {
+        if (fields < 4) {
+            return null;
+        }
+        LocalDateTime when = TaskCodecs.parseTime(line, bounds, 3);
+        return new Deadline(TaskCodecs.field(line, bounds, 2), when,
+                when == null ? TaskCodecs.field(line, bounds, 3) : null);
+    }
+
+    @Override
+    public void encode(Deadline task, ByteBuffer out) {
+        LocalDateTime when = task.getWhen();
+        int flags = typeId() | (task.isDone() ? TaskCodecs.DONE : 0)
+                | (TaskCodecs.isMinute(when) ? 0 : TaskCodecs.RAW_FIRST);
+        out.put((byte) flags);
+        TaskCodecs.putString(task.getDescription(), out);
+        TaskCodecs.putTime(when, when == null ? task.getByToken() : null, out);
+    }
+
+    @Override
+    public Deadline decode(int flags, ByteBuffer in) {
+        String desc = TaskCodecs.getString(in);
+        if ((flags & TaskCodecs.RAW_FIRST) == 0) {
+            return new Deadline(desc, TaskCodecs.getMinute(in), null);
+        }
+        String raw = TaskCodecs.getString(in);
+        return new Deadline(desc, DateTimeUtil.parseDateTime(raw).orElse(null), raw);
+    }
+}
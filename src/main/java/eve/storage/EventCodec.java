@@ -0,0 +1,92 @@
+package eve.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.time.LocalDateTime;
+
+import eve.tasks.Event;
+import eve.util.DateTimeUtil;
+
+/**
+ * Codec for {@link Event}:
+ * {@code E | 0 | meeting | 2019-12-02T14:00 | 2019-12-02T16:00}.
+ * Each end of the range is stored in ISO form if it was parsed, or as the
+ * raw text.
+ */
+final class EventCodec implements TaskCodec<Event> {
+    @Override
+    public Class<Event> type() {
+        return Event.class;
+    }
+
+    @Override
+    public char tag() {
+        return 'E';
+    }
+
+    @Override
+    public int typeId() {
+        return 2;
+    }
+
+    @Override
+    public void encode(Event task, CharBuffer out) {
+        TaskCodecs.putHead(tag(), task, out);
+        out.put(task.getDescription()).put(" | ");
+        if (task.getFromDT() != null) {
+            TaskCodecs.putIso(task.getFromDT(), out);
+        } else {
+            out.put(task.getFromToken());
+        }
+        out.put(" | ");
+        if (task.getToDT() != null) {
+            TaskCodecs.putIso(task.getToDT(), out);
+        } else {
+            out.put(task.getToToken());
+        }
+    }
+
+    @Override
+    public Event decode(CharSequence line, int[] bounds, int fields) {
+        LocalDateTime from = fields >= 4 ? TaskCodecs.parseTime(line, bounds, 3) : null;
+        LocalDateTime to = fields >= 5 ? TaskCodecs.parseTime(line, bounds, 4) : null;
+        String fromText = from != null ? null : fields >= 4 ? TaskCodecs.field(line, bounds, 3) : "";
+        String toText = to != null ? null : fields >= 5 ? TaskCodecs.field(line, bounds, 4) : "";
+        return new Event(TaskCodecs.field(line, bounds, 2), from, fromText, to, toText);
+    }
+
+    @Override
+    public void encode(Event task, ByteBuffer out) {
+        LocalDateTime from = task.getFromDT();
+        LocalDateTime to = task.getToDT();
+        int flags = typeId() | (task.isDone() ? TaskCodecs.DONE : 0)
+                | (TaskCodecs.isMinute(from) ? 0 : TaskCodecs.RAW_FIRST)
+                | (TaskCodecs.isMinute(to) ? 0 : TaskCodecs.RAW_SECOND);
+        out.put((byte) flags);
+        TaskCodecs.putString(task.getDescription(), out);
+        TaskCodecs.putTime(from, from == null ? task.getFromToken() : null, out);
+        TaskCodecs.putTime(to, to == null ? task.getToToken() : null, out);
+    }
+
+    @Override
+    public Event decode(int flags, ByteBuffer in) {
+        String desc = TaskCodecs.getString(in);
+        LocalDateTime from = null;
+        String fromText = null;
+        if ((flags & TaskCodecs.RAW_FIRST) == 0) {
+            from = TaskCodecs.getMinute(in);
+        } else {
+            fromText = TaskCodecs.getString(in);
+            from = DateTimeUtil.parseDateTime(fromText).orElse(null);
+        }
+        LocalDateTime to = null;
+        String toText = null;
+        if ((flags & TaskCodecs.RAW_SECOND) == 0) {
+            to = TaskCodecs.getMinute(in);
+        } else {
+            toText = TaskCodecs.getString(in);
+            to = DateTimeUtil.parseDateTime(toText).orElse(null);
+        }
+        return new Event(desc, from, fromText, to, toText);
+    }
+}
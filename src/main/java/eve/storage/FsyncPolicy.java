@@ -0,0 +1,107 @@
+package eve.storage;
+
+/**
+ * Describes when the background writer of {@link Storage} forces written data
+ * to the disk.
+ * <ul>
+ * <li>{@code always} - after every batch of writes</li>
+ * <li>{@code every N ms} - at most once every {@code N} milliseconds</li>
+ * <li>{@code on-exit} - only when the storage is flushed or closed</li>
+ * </ul>
+ * The policy applies to journal appends. Snapshots are always forced before
+ * they replace the data file.
+ */
+public final class FsyncPolicy {
+    /** Forces after every batch of writes. */
+    public static final FsyncPolicy ALWAYS = new FsyncPolicy(0);
+    /** Forces only when the storage is flushed or closed. */
+    public static final FsyncPolicy ON_EXIT = new FsyncPolicy(-1);
+
+    /** Interval between forces in milliseconds; {@code 0} = always, negative = on exit. */
+    private final long intervalMillis;
+
+    private FsyncPolicy(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Returns a policy that forces written data at most once per interval.
+     *
+     * @param millis the interval in milliseconds (must be positive)
+     * @return the policy
+     */
+    public static FsyncPolicy every(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + millis);
+        }
+        return new FsyncPolicy(millis);
+    }
+
+    /**
+     * Parses a policy from text such as {@code "always"}, {@code "on-exit"},
+     * {@code "every 500ms"} or {@code "500ms"}.
+     *
+     * @param text the policy text
+     * @return the parsed policy
+     * @throws IllegalArgumentException if the text is not a known policy
+     */
+    public static FsyncPolicy parse(String text) {
+        String s = text == null ? "" : text.trim().toLowerCase();
+        if (s.equals("always")) {
+            return ALWAYS;
+        }
+        if (s.equals("on-exit")) {
+            return ON_EXIT;
+        }
+        if (s.startsWith("every")) {
+            s = s.substring("every".length()).trim();
+        }
+        if (s.endsWith("ms")) {
+            s = s.substring(0, s.length() - 2).trim();
+        }
+        try {
+            return every(Long.parseLong(s));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown fsync policy: " + text);
+        }
+    }
+
+    /**
+     * Returns whether every batch of writes is forced.
+     *
+     * @return {@code true} for {@link #ALWAYS}
+     */
+    public boolean isAlways() {
+        return intervalMillis == 0;
+    }
+
+    /**
+     * Returns whether data is only forced on flush or close.
+     *
+     * @return {@code true} for {@link #ON_EXIT}
+     */
+    public boolean isOnExit() {
+        return intervalMillis < 0;
+    }
+
+    /**
+     * Returns the interval between forces.
+     *
+     * @return the interval in milliseconds, or {@code 0} for {@link #ALWAYS}
+     *         and a negative value for {@link #ON_EXIT}
+     */
+    public long intervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        if (isAlways()) {
+            return "always";
+        }
+        if (isOnExit()) {
+            return "on-exit";
+        }
+        return "every " + intervalMillis + "ms";
+    }
+}
@@ -0,0 +1,213 @@
+package eve.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import eve.tasks.Task;
+
+/**
+ * Loads large data files by memory-mapping them and parsing newline-aligned
+ * chunks in parallel on the common fork-join pool.
+ * <p>
+ * The chunks are merged back in file order, so the result is the same list
+ * that reading the file line by line would produce. Lines are split on
+ * {@code \n}, {@code \r\n} and {@code \r}, like {@link java.io.BufferedReader},
+ * and malformed UTF-8 is reported as an {@link IOException}.
+ */
+class ParallelLoader {
+    /** Files smaller than this are not worth splitting. */
+    static final long MIN_PARALLEL_BYTES = 1 << 20;
+
+    /** Target size of a chunk, in bytes. */
+    private final long chunkBytes;
+    /** Parses one line into a task, returning {@code null} for lines to skip. */
+    private final Function<String, Task> parser;
+
+    /**
+     * Creates a loader.
+     *
+     * @param parser     parses one line into a task, or {@code null} to skip it;
+     *                   called concurrently
+     * @param chunkBytes target size of a chunk in bytes
+     */
+    ParallelLoader(Function<String, Task> parser, long chunkBytes) {
+        this.parser = parser;
+        this.chunkBytes = Math.max(1, chunkBytes);
+    }
+
+    /**
+     * Creates a loader that splits files into roughly four chunks per worker
+     * of the common pool.
+     *
+     * @param parser   parses one line into a task, or {@code null} to skip it
+     * @param fileSize size of the file that will be loaded
+     * @return the loader
+     */
+    static ParallelLoader forSize(Function<String, Task> parser, long fileSize) {
+        int workers = ForkJoinPool.getCommonPoolParallelism();
+        return new ParallelLoader(parser, Math.max(64 * 1024, fileSize / (workers * 4L)));
+    }
+
+    /**
+     * Loads all tasks from the file.
+     *
+     * @param file the data file
+     * @return the tasks, in file order
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     */
+    List<Task> load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(ch);
+            int chunks = bounds.length - 1;
+            List<List<Task>> parsed = new ArrayList<>(Collections.nCopies(chunks, null));
+            try {
+                ForkJoinPool.commonPool().invoke(new ParseChunks(ch, bounds, parsed, 0, chunks));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            int total = 0;
+            for (List<Task> p : parsed) {
+                total += p.size();
+            }
+            List<Task> out = new ArrayList<>(total);
+            for (List<Task> p : parsed) {
+                out.addAll(p);
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Splits the file into chunks of about {@link #chunkBytes}, moving each
+     * boundary forward to just after the next {@code '\n'}.
+     *
+     * @return chunk start offsets followed by the file size
+     */
+    private long[] chunkBounds(FileChannel ch) throws IOException {
+        long size = ch.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(8 * 1024);
+        long pos = chunkBytes;
+        while (pos < size) {
+            long next = -1;
+            long scan = pos;
+            while (next < 0 && scan < size) {
+                window.clear();
+                int n = ch.read(window, scan);
+                if (n <= 0) {
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (window.get(i) == '\n') {
+                        next = scan + i + 1;
+                        break;
+                    }
+                }
+                scan += n;
+            }
+            if (next < 0 || next >= size) {
+                break;
+            }
+            bounds.add(next);
+            pos = next + chunkBytes;
+        }
+        bounds.add(size);
+        long[] out = new long[bounds.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = bounds.get(i);
+        }
+        return out;
+    }
+
+    /**
+     * Parses the chunks {@code [from, to)} by splitting the range in halves.
+     * Each chunk's slot in {@code parsed} is set by one task only. Tasks are
+     * never serialized.
+     */
+    @SuppressWarnings("serial")
+    private final class ParseChunks extends RecursiveAction {
+        private final FileChannel ch;
+        private final long[] bounds;
+        private final List<List<Task>> parsed;
+        private final int from;
+        private final int to;
+
+        ParseChunks(FileChannel ch, long[] bounds, List<List<Task>> parsed, int from, int to) {
+            this.ch = ch;
+            this.bounds = bounds;
+            this.parsed = parsed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseChunks(ch, bounds, parsed, from, mid),
+                        new ParseChunks(ch, bounds, parsed, mid, to));
+                return;
+            }
+            try {
+                parsed.set(from, parseChunk(ch, bounds[from], bounds[from + 1]));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Maps, decodes and parses one chunk. */
+    private List<Task> parseChunk(FileChannel ch, long start, long end) throws IOException {
+        List<Task> out = new ArrayList<>();
+        if (end <= start) {
+            return out;
+        }
+        MappedByteBuffer bytes = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = decoder.decode(bytes);
+
+        int len = chars.length();
+        int lineStart = 0;
+        for (int i = 0; i < len; i++) {
+            char c = chars.get(i);
+            if (c != '\n' && c != '\r') {
+                continue;
+            }
+            addLine(chars, lineStart, i, out);
+            if (c == '\r' && i + 1 < len && chars.get(i + 1) == '\n') {
+                i++;
+            }
+            lineStart = i + 1;
+        }
+        if (lineStart < len) {
+            addLine(chars, lineStart, len, out);
+        }
+        return out;
+    }
+
+    private void addLine(CharBuffer chars, int start, int end, List<Task> out) {
+        Task t = parser.apply(chars.subSequence(start, end).toString());
+        if (t != null) {
+            out.add(t);
+        }
+    }
+}
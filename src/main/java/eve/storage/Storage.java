@@ -1,33 +1,148 @@
 package eve.storage;
 
 import java.io.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 
 import eve.tasks.Task;
-import eve.tasks.Todo;
-import eve.tasks.Deadline;
-import eve.tasks.Event;
 
 /**
  * Handles loading and saving tasks to persistent storage on disk.
  * <p>
  * Tasks are stored in a plain text file with a simple line-based format:
- * 
+ *
  * <pre>
  *   T | 1 | read book
  *   D | 0 | return book | 2019-12-02
  *   E | 0 | meeting | 2019-12-02T14:00 | 2019-12-02T16:00
  * </pre>
- * 
+ *
  * Each line represents a task of type {@code Todo}, {@code Deadline}, or
  * {@code Event}.
- * Parsing of dates/times is delegated to the individual task classes.
+ * Encoding and decoding of each task type is delegated to its
+ * {@link TaskCodec}.
+ * The data file may instead use a compact binary format
+ * ({@link Format#BINARY}), which {@link #load()} recognizes by its header;
+ * see {@link #convert(Format)}.
+ * <p>
+ * In journal mode, single mutations are appended to a journal file next to the
+ * data file instead of rewriting the whole list:
+ *
+ * <pre>
+ *   12 | A | T | 0 | read book
+ *   13 | M | 3
+ *   14 | U | 3
+ *   15 | X | 0
+ *   16 | I | 0 | T | 0 | read book
+ * </pre>
+ *
+ * Each record carries a sequence number, an operation ({@code A}dd,
+ * {@code M}ark, {@code U}nmark, delete ({@code X}), or {@code I}nsert, which
+ * puts a task back at a position when a delete is undone) and its payload
+ * (a serialized task, a zero-based index, or both). The data file then acts as a
+ * snapshot whose first line ({@code # seq N}) records the last journal entry
+ * it already contains. Once the journal grows past the configured size, it is
+ * compacted into a fresh snapshot. A full {@link #save} takes a sequence
+ * number of its own, so no two different snapshots share one, and the
+ * journal starts with a {@code # seq N} line naming the snapshot it follows.
+ * The previous snapshot ({@code .bak}) replaces an unreadable data file only
+ * if the journal still holds every record after it.
+ * <p>
+ * All disk writes happen on a single background writer thread. Callers only
+ * queue their changes; the writer merges everything queued since its last
+ * batch into one write (only the newest pending snapshot is written, and
+ * journal records it already contains are dropped) and forces journal
+ * appends to disk according to the configured {@link FsyncPolicy}.
+ * Use {@link #flush()} or {@link #close()} to wait until queued changes are
+ * on disk. The writer is started when a change is queued and stops once it
+ * has been idle for {@link #WRITER_IDLE_MILLIS}, so a storage with nothing to
+ * write holds no thread.
+ * <p>
+ * Snapshots are never written in place: each one goes to a temporary file
+ * that is forced and then atomically renamed over the data file, keeping the
+ * previous generation as {@code <file>.bak} for {@link #load()} to fall back
+ * on.
  */
 public class Storage {
+    /**
+     * On-disk formats of the data file. {@link #load()} detects the format of
+     * an existing file by its header, and later snapshots keep that format.
+     */
+    public enum Format {
+        /** The line-based {@code T | 1 | read book} text format. */
+        TEXT,
+        /** The compact, versioned binary format described in {@link BinaryFormat}. */
+        BINARY
+    }
+
+    /** Default journal size (in bytes) after which the journal is compacted. */
+    public static final long DEFAULT_JOURNAL_LIMIT = 64 * 1024;
+    /** How long the writer waits for more changes before it stops, in milliseconds. */
+    static final long WRITER_IDLE_MILLIS = 1000;
+
+    /** Prefix of the snapshot header line holding the last included sequence number. */
+    private static final String SEQ_HEADER = "# seq ";
+
     /** Path to the data file on disk. */
     private final Path file;
+    /** Path to the previous snapshot generation, used if the data file is unreadable. */
+    private final Path backup;
+    /** Path to the temporary file a new snapshot is written to before it is published. */
+    private final Path tmp;
+    /** Path to the journal file, used only in journal mode. */
+    private final Path journal;
+    /** Journal size (in bytes) that triggers compaction; {@code 0} disables journal mode. */
+    private final long journalLimit;
+    /** When the writer forces written data to disk. */
+    private final FsyncPolicy policy;
+
+    // Queue shared between callers and the writer, guarded by this.
+
+    /** Format of the snapshots written from now on. */
+    private Format format = Format.TEXT;
+
+    /** Journal records waiting to be written. */
+    private List<String> pendingRecords = new ArrayList<>();
+    /** Newest snapshot waiting to be written, or {@code null}. */
+    private List<Task> pendingSnapshot;
+    /** Sequence number contained in {@link #pendingSnapshot}. */
+    private long pendingSnapshotSeq;
+    /** Number of changes queued so far. */
+    private long queued;
+    /** Number of queued changes the writer has finished with. */
+    private long written;
+    /** Number of queued changes known to be forced to disk. */
+    private long synced;
+    /** Whether a caller is waiting for queued changes to be forced. */
+    private boolean flushRequested;
+    /** Whether the writer should drain the queue and stop. */
+    private boolean stopping;
+    /** The writer thread, started when a change is queued; {@code null} while idle. */
+    private Thread writer;
+    /**
+     * Whether the last batch failed to write, in which case its changes are
+     * queued again; cleared by the next batch that succeeds.
+     */
+    private boolean failed;
+    /** Approximate number of bytes in the journal, including queued records. */
+    private long journalBytes;
+    /** Sequence number of the last journal record queued or replayed. */
+    private long seq;
+
+    // Writer-thread state.
+
+    /** Open journal channel, or {@code null} until the first append. */
+    private FileChannel journalOut;
+    /** Whether data has been written since the last force. */
+    private boolean dirty;
+    /** Time of the last force, from {@link System#currentTimeMillis()}. */
+    private long lastSync;
 
     /**
      * Constructs a {@code Storage} object for the given relative file path.
@@ -36,7 +151,41 @@ public class Storage {
      *                     {@code "data/eve.txt"})
      */
     public Storage(String relativePath) {
+        this(relativePath, 0);
+    }
+
+    /**
+     * Constructs a {@code Storage} object in journal mode.
+     * <p>
+     * Mutations reported through {@link #saveAdded}, {@link #saveDone},
+     * {@link #saveDeleted} and {@link #saveInserted} are appended to {@code <relativePath>.journal}, which
+     * is compacted into the data file once it grows past {@code journalLimit}
+     * bytes.
+     *
+     * @param relativePath the relative path to the data file
+     * @param journalLimit journal size in bytes that triggers compaction, or
+     *                     {@code 0} to disable journal mode
+     */
+    public Storage(String relativePath, long journalLimit) {
+        this(relativePath, journalLimit, FsyncPolicy.ALWAYS);
+    }
+
+    /**
+     * Constructs a {@code Storage} object with the given journal limit and
+     * fsync policy.
+     *
+     * @param relativePath the relative path to the data file
+     * @param journalLimit journal size in bytes that triggers compaction, or
+     *                     {@code 0} to disable journal mode
+     * @param policy       when written data is forced to disk
+     */
+    public Storage(String relativePath, long journalLimit, FsyncPolicy policy) {
         this.file = Paths.get(relativePath);
+        this.backup = Paths.get(relativePath + ".bak");
+        this.tmp = Paths.get(relativePath + ".tmp");
+        this.journal = Paths.get(relativePath + ".journal");
+        this.journalLimit = Math.max(0, journalLimit);
+        this.policy = policy;
     }
 
     /**
@@ -45,28 +194,64 @@ public class Storage {
      * If the file does not exist, it will be created along with its parent
      * directories.
      * If the file contains corrupted or unrecognized lines, those lines will be
-     * ignored.
+     * ignored. In journal mode, the journal is replayed on top of the snapshot.
+     * If the data file is missing or unreadable, the previous snapshot is used
+     * instead; in journal mode only if the journal still holds every change
+     * made since that snapshot.
      *
      * @return a list of {@link Task} objects loaded from storage
      */
     public List<Task> load() {
+        flush();
         List<Task> out = new ArrayList<>();
+        long snapshotSeq = 0;
+        long lastSeq;
+        boolean fromBackup = false;
         try {
-            if (!Files.exists(file)) {
+            if (Files.exists(file)) {
+                try {
+                    snapshotSeq = readSnapshot(file, out);
+                } catch (IOException e) {
+                    if (!Files.exists(backup)) {
+                        throw e;
+                    }
+                    System.out.println("Warning: " + file + " is unreadable, using previous snapshot: "
+                            + e.getMessage());
+                    out.clear();
+                    snapshotSeq = readSnapshot(backup, out);
+                    fromBackup = true;
+                }
+            } else if (Files.exists(backup)) {
+                snapshotSeq = readSnapshot(backup, out);
+                fromBackup = true;
+            } else {
                 Path parent = file.getParent();
                 if (parent != null && !Files.exists(parent)) {
                     Files.createDirectories(parent);
                 }
-                return out;
             }
-            try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    Task t = parseLine(line);
-                    if (t != null) {
-                        out.add(t);
+            lastSeq = snapshotSeq;
+            if (isJournaled() && Files.exists(journal)) {
+                try (BufferedReader br = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        boolean header = line.startsWith(SEQ_HEADER);
+                        long n = header
+                                ? parseSeq(line.substring(SEQ_HEADER.length()))
+                                : replay(line, lastSeq, out);
+                        if (fromBackup && (header ? n > snapshotSeq : n > lastSeq + 1)) {
+                            out.clear();
+                            throw new IOException("the previous snapshot is older than the journal");
+                        }
+                        lastSeq = Math.max(lastSeq, n);
                     }
                 }
+                synchronized (this) {
+                    journalBytes = Files.size(journal);
+                }
+            }
+            synchronized (this) {
+                seq = lastSeq;
             }
         } catch (IOException e) {
             System.out.println("Warning: failed to load tasks: " + e.getMessage());
@@ -74,30 +259,688 @@ public class Storage {
         return out;
     }
 
+    /**
+     * Reads a snapshot file in either format into {@code out}, and remembers
+     * its format for later snapshots. Large text files are memory-mapped and
+     * parsed in parallel by {@link ParallelLoader}.
+     *
+     * @param path the snapshot file
+     * @param out  the list to add the loaded tasks to
+     * @return the journal sequence number contained in the snapshot
+     * @throws IOException if the file cannot be read
+     */
+    private long readSnapshot(Path path, List<Task> out) throws IOException {
+        if (detectFormat(path) == Format.BINARY) {
+            long upTo = BinaryFormat.read(ByteBuffer.wrap(Files.readAllBytes(path)), out);
+            synchronized (this) {
+                format = Format.BINARY;
+            }
+            return upTo;
+        }
+        synchronized (this) {
+            format = Format.TEXT;
+        }
+        long size = Files.size(path);
+        if (size >= ParallelLoader.MIN_PARALLEL_BYTES) {
+            out.addAll(ParallelLoader.forSize(Storage::parseLine, size).load(path));
+            try (BufferedReader br = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String first = br.readLine();
+                return first != null && first.startsWith(SEQ_HEADER)
+                        ? parseSeq(first.substring(SEQ_HEADER.length()))
+                        : 0;
+            }
+        }
+        long snapshotSeq = 0;
+        try (BufferedReader br = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.startsWith(SEQ_HEADER)) {
+                    snapshotSeq = parseSeq(line.substring(SEQ_HEADER.length()));
+                    continue;
+                }
+                Task t = parseLine(line);
+                if (t != null) {
+                    out.add(t);
+                }
+            }
+        }
+        return snapshotSeq;
+    }
+
+    /**
+     * Detects the format of a data file from its first bytes.
+     *
+     * @param path the data file
+     * @return {@link Format#BINARY} if the file starts with the binary magic,
+     *         {@link Format#TEXT} otherwise
+     * @throws IOException if the file cannot be read
+     */
+    public static Format detectFormat(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] head = in.readNBytes(BinaryFormat.MAGIC.length);
+            return BinaryFormat.isBinary(head, head.length) ? Format.BINARY : Format.TEXT;
+        }
+    }
+
+    /**
+     * Returns the format used for snapshots written from now on.
+     *
+     * @return the current format
+     */
+    public synchronized Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Converts the data file to the given format.
+     * <p>
+     * Loads the current contents (replaying any journal), switches the format
+     * and writes one new snapshot, waiting until it is on disk. Later
+     * snapshots keep the new format.
+     *
+     * @param target the format to convert to
+     * @return the number of tasks converted
+     */
+    public int convert(Format target) {
+        List<Task> tasks = load();
+        synchronized (this) {
+            format = target;
+            queueSnapshot(tasks);
+        }
+        flush();
+        return tasks.size();
+    }
+
     /**
      * Saves the given list of tasks to the data file, overwriting its contents.
      * <p>
      * If the parent directories do not exist, they will be created automatically.
+     * The list is copied and written by the background writer; saves queued
+     * before it is written are merged into one. In journal mode the new
+     * snapshot also replaces the journal.
      *
      * @param tasks the list of tasks to be written to storage
      */
-    public void save(List<Task> tasks) {
+    public synchronized void save(List<Task> tasks) {
+        seq++;
+        queueSnapshot(tasks);
+    }
+
+    /**
+     * Persists the addition of a task at the end of the list.
+     *
+     * @param added the task that was added
+     * @param tasks the full list of tasks after the addition
+     */
+    public void saveAdded(Task added, List<Task> tasks) {
+        if (!isJournaled()) {
+            save(tasks);
+            return;
+        }
+        append("A", serialize(added), tasks);
+    }
+
+    /**
+     * Persists a change to the done state of a task.
+     *
+     * @param idx0  zero-based index of the task
+     * @param done  the new done state
+     * @param tasks the full list of tasks after the change
+     */
+    public void saveDone(int idx0, boolean done, List<Task> tasks) {
+        if (!isJournaled()) {
+            save(tasks);
+            return;
+        }
+        append(done ? "M" : "U", String.valueOf(idx0), tasks);
+    }
+
+    /**
+     * Persists the deletion of a task.
+     *
+     * @param idx0  zero-based index the task had before it was removed
+     * @param tasks the full list of tasks after the deletion
+     */
+    public void saveDeleted(int idx0, List<Task> tasks) {
+        if (!isJournaled()) {
+            save(tasks);
+            return;
+        }
+        append("X", String.valueOf(idx0), tasks);
+    }
+
+    /**
+     * Persists putting a task back at a position, as when a delete is undone.
+     *
+     * @param idx0     zero-based index the task now has
+     * @param inserted the task that was put back
+     * @param tasks    the full list of tasks after the insertion
+     */
+    public void saveInserted(int idx0, Task inserted, List<Task> tasks) {
+        if (!isJournaled()) {
+            save(tasks);
+            return;
+        }
+        append("I", idx0 + " | " + serialize(inserted), tasks);
+    }
+
+    /**
+     * Blocks until every change queued so far has been written and forced to
+     * disk, regardless of the fsync policy. Changes from a failed batch are
+     * written again first.
+     *
+     * @return {@code false} if writing failed, in which case a warning has
+     *         been printed and the changes may not be on disk
+     */
+    public synchronized boolean flush() {
+        if (failed) {
+            queued++;
+            startWriter();
+        }
+        long target = queued;
+        if (synced >= target) {
+            return !failed;
+        }
+        flushRequested = true;
+        startWriter();
+        boolean interrupted = false;
+        while (synced < target && writer != null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return !failed && synced >= target;
+    }
+
+    /**
+     * Flushes all queued changes and stops the background writer.
+     * <p>
+     * The storage remains usable afterwards; the writer is restarted on the
+     * next change.
+     */
+    public void close() {
+        Thread w;
+        synchronized (this) {
+            if (writer == null) {
+                if (!dirty && journalOut == null) {
+                    return;
+                }
+                startWriter();
+            }
+            w = writer;
+            stopping = true;
+            notifyAll();
+        }
+        boolean interrupted = false;
+        while (w.isAlive()) {
+            try {
+                w.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            stopping = false;
+            writer = null;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns whether this storage appends mutations to a journal.
+     *
+     * @return {@code true} in journal mode
+     */
+    public boolean isJournaled() {
+        return journalLimit > 0;
+    }
+
+    /**
+     * Queues one journal record, and a compacting snapshot if the journal has
+     * grown past its limit.
+     */
+    private synchronized void append(String op, String payload, List<Task> tasks) {
+        String record = (++seq) + " | " + op + " | " + payload;
+        pendingRecords.add(record);
+        journalBytes += record.length() + 1;
+        if (journalBytes >= journalLimit && pendingSnapshot == null) {
+            queueSnapshot(tasks);
+        } else {
+            queued++;
+            startWriter();
+        }
+    }
+
+    /**
+     * Queues a copy of the list as the next snapshot, replacing any snapshot
+     * that has not been written yet. Tasks are shared with the caller; a
+     * {@code TaskList} replaces a task it marks instead of changing it, so the
+     * snapshot holds the done states as they were when it was queued.
+     */
+    private void queueSnapshot(List<Task> tasks) {
+        pendingSnapshot = new ArrayList<>(tasks);
+        pendingSnapshotSeq = seq;
+        journalBytes = 0;
+        queued++;
+        startWriter();
+    }
+
+    /** Starts the writer thread if needed and wakes it up. */
+    private void startWriter() {
+        if (writer == null) {
+            writer = new Thread(this::runWriter, "eve-storage-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Body of the writer thread. If it dies on an unexpected error, waiting
+     * callers are woken and the next change starts a new writer.
+     */
+    private void runWriter() {
+        boolean stopped = false;
         try {
-            Path parent = file.getParent();
-            if (parent != null && !Files.exists(parent)) {
-                Files.createDirectories(parent);
-            }
-            try (BufferedWriter bw = Files.newBufferedWriter(
-                    file, StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeLoop();
+            stopped = true;
+        } finally {
+            if (!stopped) {
+                synchronized (this) {
+                    failed = true;
+                    writer = null;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Repeatedly takes everything queued, writes it as one batch and forces it
+     * according to the policy, until stopped or idle for
+     * {@link #WRITER_IDLE_MILLIS}.
+     */
+    private void writeLoop() {
+        while (true) {
+            List<String> records;
+            List<Task> snapshot;
+            long snapshotSeq;
+            long batch;
+            boolean force;
+            boolean exit;
+            synchronized (this) {
+                long idleUntil = 0;
+                while (!hasWork()) {
+                    long now = System.currentTimeMillis();
+                    long timeout;
+                    if (dirty && !policy.isOnExit()) {
+                        timeout = Math.max(1, lastSync + policy.intervalMillis() - now);
+                    } else if (idleUntil == 0) {
+                        idleUntil = now + WRITER_IDLE_MILLIS;
+                        timeout = WRITER_IDLE_MILLIS;
+                    } else if (now < idleUntil) {
+                        timeout = idleUntil - now;
+                    } else {
+                        stopIdle();
+                        return;
+                    }
+                    try {
+                        wait(timeout);
+                    } catch (InterruptedException e) {
+                        // keep draining; only close() stops the writer
+                    }
+                }
+                records = pendingRecords;
+                pendingRecords = new ArrayList<>();
+                snapshot = pendingSnapshot;
+                snapshotSeq = pendingSnapshotSeq;
+                pendingSnapshot = null;
+                batch = queued;
+                force = flushRequested || stopping || policy.isAlways() || syncDue();
+                flushRequested = false;
+                exit = stopping;
+            }
+
+            boolean ok = false;
+            try {
+                if (snapshot != null) {
+                    writeSnapshot(snapshot, snapshotSeq);
+                    if (isJournaled()) {
+                        truncateJournal(snapshotSeq);
+                    }
+                }
+                appendRecords(records, snapshot != null ? snapshotSeq : -1);
+                if (force) {
+                    sync();
+                }
+                ok = true;
+            } catch (IOException e) {
+                System.out.println("Warning: failed to save tasks: " + e.getMessage());
+            } catch (RuntimeException e) {
+                System.out.println("Warning: failed to save tasks: " + e);
+            }
+            if (!ok) {
+                closeJournal();
+            }
+
+            synchronized (this) {
+                if (!ok) {
+                    requeue(records, snapshot, snapshotSeq);
+                }
+                failed = !ok;
+                written = batch;
+                if (!dirty) {
+                    synced = batch;
+                }
+                notifyAll();
+                if (exit && queued == written) {
+                    closeJournal();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the records and snapshot of a failed batch back in front of the
+     * changes queued since, so that the next batch writes them again instead
+     * of leaving a gap in the journal. Records that did reach the journal are
+     * skipped on replay. Must hold the lock.
+     */
+    private void requeue(List<String> records, List<Task> snapshot, long snapshotSeq) {
+        if (snapshot != null && pendingSnapshot == null) {
+            pendingSnapshot = snapshot;
+            pendingSnapshotSeq = snapshotSeq;
+        }
+        records.addAll(pendingRecords);
+        pendingRecords = records;
+    }
+
+    /**
+     * Stops the idle writer, closing the journal unless it holds appends that
+     * the on-exit policy has not forced yet; both are reopened by the next
+     * change. Must hold the lock.
+     */
+    private void stopIdle() {
+        if (!dirty) {
+            closeJournal();
+        }
+        writer = null;
+        notifyAll();
+    }
+
+    /** Returns whether the writer has anything to do. Must hold the lock. */
+    private boolean hasWork() {
+        return queued > written || flushRequested || stopping || syncDue();
+    }
+
+    /** Returns whether an interval policy requires a force now. */
+    private boolean syncDue() {
+        return dirty && !policy.isOnExit()
+                && System.currentTimeMillis() - lastSync >= policy.intervalMillis();
+    }
+
+    /** Forces the journal to disk if anything was written since the last force. */
+    private void sync() throws IOException {
+        if (dirty && journalOut != null) {
+            journalOut.force(false);
+        }
+        dirty = false;
+        lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes all tasks as a new snapshot in the current format. Text snapshots
+     * are preceded by a sequence header in journal mode.
+     * <p>
+     * The snapshot is written to a temporary file and forced to disk first.
+     * The current data file is then kept as the previous generation
+     * ({@code <file>.bak}) and the temporary file is atomically renamed into
+     * place, so a crash at any point leaves either the old or the new
+     * snapshot intact.
+     */
+    private void writeSnapshot(List<Task> tasks, long upTo) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        Format fmt;
+        synchronized (this) {
+            fmt = format;
+        }
+        try (FileChannel ch = FileChannel.open(tmp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (fmt == Format.BINARY) {
+                BinaryFormat.write(tasks, upTo, ch);
+            } else {
+                BufferedWriter bw = new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8));
+                if (isJournaled()) {
+                    bw.write(SEQ_HEADER + upTo);
+                    bw.newLine();
+                }
+                CharBuffer line = CharBuffer.allocate(256);
                 for (Task t : tasks) {
-                    bw.write(serialize(t));
+                    line = encode(t, line);
+                    bw.write(line.array(), 0, line.position());
                     bw.newLine();
                 }
+                bw.flush();
+            }
+            ch.force(true);
+        }
+        if (Files.exists(file)) {
+            Files.move(file, backup, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    /**
+     * Forces the directory holding the data file, so that the renames of the
+     * latest snapshot survive a crash. Not supported on every platform, in
+     * which case the renames are left to the file system.
+     */
+    private void syncDirectory() {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // directories cannot be opened or forced on this platform
+        }
+    }
+
+    /** Appends queued journal records newer than {@code upTo} as one write. */
+    private void appendRecords(List<String> records, long upTo) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String r : records) {
+            if (recordSeq(r) > upTo) {
+                sb.append(r).append(System.lineSeparator());
+            }
+        }
+        if (sb.length() == 0) {
+            return;
+        }
+        ByteBuffer buf = StandardCharsets.UTF_8.encode(CharBuffer.wrap(sb));
+        FileChannel out = openJournal();
+        long start = out.position();
+        try {
+            while (buf.hasRemaining()) {
+                out.write(buf);
             }
         } catch (IOException e) {
-            System.out.println("Warning: failed to save tasks: " + e.getMessage());
+            try {
+                out.truncate(start);
+            } catch (IOException ignored) {
+                // openJournal() terminates the torn line when it reopens the journal
+            }
+            throw e;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Rewrites the journal keeping only records newer than {@code upTo}, after
+     * a header naming the snapshot it continues from. A previous snapshot
+     * older than that header is missing changes the journal no longer holds.
+     */
+    private void truncateJournal(long upTo) throws IOException {
+        closeJournal();
+        List<String> keep = new ArrayList<>();
+        keep.add(SEQ_HEADER + upTo);
+        if (Files.exists(journal)) {
+            for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+                if (recordSeq(line) > upTo) {
+                    keep.add(line);
+                }
+            }
+        }
+        Path tmp = Paths.get(journal + ".tmp");
+        Files.write(tmp, keep, StandardCharsets.UTF_8);
+        Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens the journal for appending. If a previous run crashed in the middle
+     * of a record, the torn line is terminated first so that it is skipped on
+     * replay instead of swallowing the next record.
+     */
+    private FileChannel openJournal() throws IOException {
+        if (journalOut != null) {
+            return journalOut;
+        }
+        Path parent = journal.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        journalOut = FileChannel.open(journal, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = journalOut.size();
+        boolean torn = false;
+        if (size > 0) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            journalOut.read(last, size - 1);
+            torn = last.get(0) != '\n';
+        }
+        journalOut.position(size);
+        if (torn) {
+            journalOut.write(StandardCharsets.UTF_8.encode(System.lineSeparator()));
+        }
+        return journalOut;
+    }
+
+    /** Forces and closes the journal channel, if open. */
+    private void closeJournal() {
+        if (journalOut == null) {
+            return;
+        }
+        try {
+            if (dirty) {
+                journalOut.force(false);
+                dirty = false;
+            }
+            journalOut.close();
+        } catch (IOException e) {
+            System.out.println("Warning: failed to close journal: " + e.getMessage());
+        }
+        journalOut = null;
+    }
+
+    /**
+     * Applies a single journal record to the list being loaded. Records already
+     * contained in the snapshot or applied before, such as a batch written
+     * again after a failed write, and torn or unrecognized records, are
+     * skipped.
+     *
+     * @param line    a line from the journal file
+     * @param applied the last sequence number already in {@code out}
+     * @param out     the tasks loaded so far
+     * @return the sequence number of the record, or {@code -1} if it is not one
+     */
+    private long replay(String line, long applied, List<Task> out) {
+        String[] parts = line.split("\\s*\\|\\s*", 3);
+        if (parts.length < 3) {
+            return -1;
+        }
+        long n = recordSeq(line);
+        if (n <= applied) {
+            return n;
+        }
+        try {
+            switch (parts[1].trim()) {
+                case "A": {
+                    Task t = parseLine(parts[2]);
+                    if (t != null) {
+                        out.add(t);
+                    }
+                    break;
+                }
+                case "M":
+                case "U": {
+                    int idx0 = Integer.parseInt(parts[2].trim());
+                    if (idx0 >= 0 && idx0 < out.size()) {
+                        if ("M".equals(parts[1].trim())) {
+                            out.get(idx0).markAsDone();
+                        } else {
+                            out.get(idx0).markAsNotDone();
+                        }
+                    }
+                    break;
+                }
+                case "I": {
+                    String[] at = parts[2].split("\\s*\\|\\s*", 2);
+                    int idx0 = Integer.parseInt(at[0].trim());
+                    Task t = at.length == 2 ? parseLine(at[1]) : null;
+                    if (t != null && idx0 >= 0 && idx0 <= out.size()) {
+                        out.add(idx0, t);
+                    }
+                    break;
+                }
+                case "X": {
+                    int idx0 = Integer.parseInt(parts[2].trim());
+                    if (idx0 >= 0 && idx0 < out.size()) {
+                        out.remove(idx0);
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        } catch (NumberFormatException ex) {
+            // treat as corrupted record
+        }
+        return n;
+    }
+
+    /**
+     * Returns the sequence number of a journal record.
+     *
+     * @param line a line from the journal file
+     * @return the sequence number, or {@code -1} if the line is not a record
+     */
+    private static long recordSeq(String line) {
+        int bar = line.indexOf('|');
+        return bar < 0 ? -1 : parseSeq(line.substring(0, bar));
+    }
+
+    /** Parses a sequence number, returning {@code -1} if it is malformed. */
+    private static long parseSeq(String s) {
+        try {
+            return Long.parseLong(s.trim());
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
 
@@ -115,47 +958,10 @@ public class Storage {
      * @param line a line from the storage file
      * @return the corresponding {@link Task}, or {@code null} if parsing failed
      */
-    private Task parseLine(String line) {
+    static Task parseLine(String line) {
         if (line == null)
             return null;
-        String[] parts = line.split("\\s*\\|\\s*");
-        if (parts.length < 3)
-            return null;
-
-        String type = parts[0].trim();
-        boolean isDone = "1".equals(parts[1].trim());
-
-        try {
-            switch (type) {
-                case "T": {
-                    Task t = new Todo(parts[2].trim());
-                    if (isDone)
-                        t.markAsDone();
-                    return t;
-                }
-                case "D": {
-                    if (parts.length < 4)
-                        return null;
-                    Task t = new Deadline(parts[2].trim(), parts[3].trim());
-                    if (isDone)
-                        t.markAsDone();
-                    return t;
-                }
-                case "E": {
-                    String desc = parts[2].trim();
-                    String from = (parts.length >= 4 ? parts[3].trim() : "");
-                    String to = (parts.length >= 5 ? parts[4].trim() : "");
-                    Task t = new Event(desc, from, to);
-                    if (isDone)
-                        t.markAsDone();
-                    return t;
-                }
-                default:
-                    return null;
-            }
-        } catch (Exception ex) {
-            return null; // treat as corrupted line
-        }
+        return TaskCodecs.decode(line);
     }
 
     /**
@@ -165,27 +971,27 @@ public class Storage {
      * @return a string representation of the task
      */
     private String serialize(Task t) {
-        if (t instanceof Todo) {
-            return String.format("T | %d | %s", isDone(t), t.getDescription());
-        } else if (t instanceof Deadline) {
-            Deadline d = (Deadline) t;
-            return String.format("D | %d | %s | %s",
-                    isDone(t), d.getDescription(), d.getByToken());
-        } else if (t instanceof Event) {
-            Event e = (Event) t;
-            return String.format("E | %d | %s | %s | %s",
-                    isDone(t), e.getDescription(), e.getFromToken(), e.getToToken());
-        }
-        return String.format("T | %d | %s", isDone(t), t.getDescription());
+        CharBuffer line = encode(t, CharBuffer.allocate(128));
+        return new String(line.array(), 0, line.position());
     }
 
     /**
-     * Determines whether a task is marked as done.
+     * Encodes a task into the buffer, which is cleared first and replaced by
+     * a larger one if the task does not fit.
      *
-     * @param t the task to check
-     * @return {@code 1} if done, {@code 0} otherwise
+     * @param t   the task to encode
+     * @param buf the buffer to reuse
+     * @return the buffer holding the encoded task
      */
-    private int isDone(Task t) {
-        return t.toString().contains("[X]") ? 1 : 0;
+    private static CharBuffer encode(Task t, CharBuffer buf) {
+        while (true) {
+            buf.clear();
+            try {
+                TaskCodecs.encode(t, buf);
+                return buf;
+            } catch (BufferOverflowException e) {
+                buf = CharBuffer.allocate(buf.capacity() * 2);
+            }
+        }
     }
 }
@@ -0,0 +1,82 @@
+package eve.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import eve.tasks.Task;
+
+/**
+ * Encodes and decodes one type of {@link Task} for storage.
+ * <p>
+ * Encoding writes straight into a caller-supplied, reusable buffer without
+ * building intermediate strings, so saving a list allocates nothing per task.
+ * Codecs are looked up through {@link TaskCodecs}, where new task types can be
+ * registered.
+ *
+ * @param <T> the task type handled by this codec
+ */
+public interface TaskCodec<T extends Task> {
+    /**
+     * Returns the task class handled by this codec.
+     *
+     * @return the task class
+     */
+    Class<T> type();
+
+    /**
+     * Returns the tag that starts the text form of this type, e.g. {@code 'T'}.
+     *
+     * @return the text tag
+     */
+    char tag();
+
+    /**
+     * Returns the type id stored in the low two bits of the binary flags byte.
+     *
+     * @return the binary type id, from {@code 0} to {@code 3}
+     */
+    int typeId();
+
+    /**
+     * Appends the text form of a task, e.g. {@code D | 0 | return book | 2019-12-02T00:00},
+     * without a line separator.
+     *
+     * @param task the task to encode
+     * @param out  the buffer to append to
+     * @throws java.nio.BufferOverflowException if {@code out} is too small
+     */
+    void encode(T task, CharBuffer out);
+
+    /**
+     * Decodes the text form of a task from its already split fields. Field
+     * {@code i} spans {@code line[bounds[2i], bounds[2i + 1])} with surrounding
+     * whitespace removed; fields 0 and 1 hold the tag and the done flag, which
+     * the caller applies.
+     *
+     * @param line   the line being decoded
+     * @param bounds start and end offsets of the fields
+     * @param fields number of fields, not counting trailing empty ones
+     * @return the decoded task, or {@code null} if fields are missing
+     */
+    T decode(CharSequence line, int[] bounds, int fields);
+
+    /**
+     * Appends the binary form of a task, starting with its flags byte.
+     *
+     * @param task the task to encode
+     * @param out  the buffer to append to
+     * @throws java.nio.BufferOverflowException if {@code out} is too small
+     */
+    void encode(T task, ByteBuffer out);
+
+    /**
+     * Decodes the binary form of a task whose flags byte has already been read.
+     * The done bit is applied by the caller.
+     *
+     * @param flags the flags byte
+     * @param in    the buffer positioned after the flags byte
+     * @return the decoded task
+     * @throws java.nio.BufferUnderflowException if the record is truncated
+     */
+    T decode(int flags, ByteBuffer in);
+}
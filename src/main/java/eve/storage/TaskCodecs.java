@@ -0,0 +1,418 @@
+package eve.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eve.tasks.Task;
+import eve.util.DateTimeUtil;
+
+/**
+ * Registry of {@link TaskCodec}s, plus the buffer helpers they share.
+ * <p>
+ * {@link #encode(Task, CharBuffer)} and {@link #encode(Task, ByteBuffer)}
+ * pick the codec by the task's class; {@link #decode(CharSequence)} and
+ * {@link #decode(ByteBuffer)} pick it by the text tag or binary type id.
+ * The codecs for {@code Todo}, {@code Deadline} and {@code Event} are
+ * registered by default.
+ */
+public final class TaskCodecs {
+    /** Mask of the type id bits in the binary flags byte. */
+    static final int TYPE_MASK = 0x3;
+    /** Binary flag: the task is done. */
+    static final int DONE = 0x4;
+    /** Binary flag: the first time is stored as text. */
+    static final int RAW_FIRST = 0x8;
+    /** Binary flag: the second time is stored as text. */
+    static final int RAW_SECOND = 0x10;
+
+    /** Number of leading text fields passed to codecs. */
+    private static final int MAX_FIELDS = 5;
+
+    private static final Map<Class<?>, TaskCodec<?>> BY_TYPE = new ConcurrentHashMap<>();
+    private static final TaskCodec<?>[] BY_TAG = new TaskCodec<?>[128];
+    private static final TaskCodec<?>[] BY_ID = new TaskCodec<?>[TYPE_MASK + 1];
+
+    /** Per-thread scratch space, so encoding and decoding allocate nothing. */
+    private static final ThreadLocal<int[]> BOUNDS = ThreadLocal.withInitial(() -> new int[2 * MAX_FIELDS]);
+    private static final ThreadLocal<CharBuffer> ISO = ThreadLocal.withInitial(() -> CharBuffer.allocate(40));
+
+    static {
+        register(new TodoCodec());
+        register(new DeadlineCodec());
+        register(new EventCodec());
+    }
+
+    private TaskCodecs() {
+    }
+
+    /**
+     * Registers a codec, replacing any codec for the same class, tag or type id.
+     *
+     * @param codec the codec to register
+     */
+    public static synchronized void register(TaskCodec<?> codec) {
+        if (codec.tag() >= BY_TAG.length || codec.typeId() < 0 || codec.typeId() > TYPE_MASK) {
+            throw new IllegalArgumentException("Unsupported tag or type id for " + codec.type());
+        }
+        BY_TYPE.put(codec.type(), codec);
+        BY_TAG[codec.tag()] = codec;
+        BY_ID[codec.typeId()] = codec;
+    }
+
+    /**
+     * Returns the codec for a task, by its class or nearest registered superclass.
+     *
+     * @param t the task
+     * @return the codec
+     * @throws IllegalArgumentException if no codec handles the task
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Task> TaskCodec<T> forTask(T t) {
+        for (Class<?> c = t.getClass(); c != null; c = c.getSuperclass()) {
+            TaskCodec<?> codec = BY_TYPE.get(c);
+            if (codec != null) {
+                return (TaskCodec<T>) codec;
+            }
+        }
+        throw new IllegalArgumentException("No codec for " + t.getClass().getName());
+    }
+
+    /**
+     * Appends the text form of a task to the buffer.
+     *
+     * @param t   the task
+     * @param out the buffer to append to
+     */
+    public static void encode(Task t, CharBuffer out) {
+        forTask(t).encode(t, out);
+    }
+
+    /**
+     * Appends the binary form of a task to the buffer.
+     *
+     * @param t   the task
+     * @param out the buffer to append to
+     */
+    public static void encode(Task t, ByteBuffer out) {
+        forTask(t).encode(t, out);
+    }
+
+    /**
+     * Decodes one line of the text format.
+     * <p>
+     * Fields are separated by {@code |} with surrounding whitespace ignored,
+     * and trailing empty fields do not count.
+     *
+     * @param line the line
+     * @return the task, or {@code null} if the line is corrupted or of an
+     *         unknown type
+     */
+    public static Task decode(CharSequence line) {
+        int[] bounds = BOUNDS.get();
+        int fields = 0;
+        int count = 0;
+        int start = 0;
+        int len = line.length();
+        for (int i = 0; i <= len; i++) {
+            if (i < len && line.charAt(i) != '|') {
+                continue;
+            }
+            int s = start;
+            int e = i;
+            while (s < e && line.charAt(s) <= ' ') {
+                s++;
+            }
+            while (e > s && line.charAt(e - 1) <= ' ') {
+                e--;
+            }
+            if (count < MAX_FIELDS) {
+                bounds[2 * count] = s;
+                bounds[2 * count + 1] = e;
+            }
+            count++;
+            if (e > s) {
+                fields = count;
+            }
+            start = i + 1;
+        }
+        if (fields < 3 || bounds[1] - bounds[0] != 1) {
+            return null;
+        }
+        char tag = line.charAt(bounds[0]);
+        TaskCodec<?> codec = tag < BY_TAG.length ? BY_TAG[tag] : null;
+        if (codec == null) {
+            return null;
+        }
+        try {
+            Task t = codec.decode(line, bounds, Math.min(fields, MAX_FIELDS));
+            if (t != null && bounds[3] - bounds[2] == 1 && line.charAt(bounds[2]) == '1') {
+                t.markAsDone();
+            }
+            return t;
+        } catch (RuntimeException ex) {
+            return null; // treat as corrupted line
+        }
+    }
+
+    /**
+     * Decodes one task of the binary format.
+     *
+     * @param in the buffer positioned at the task's flags byte
+     * @return the task
+     * @throws IllegalArgumentException if the type id is unknown
+     * @throws java.nio.BufferUnderflowException if the record is truncated
+     */
+    public static Task decode(ByteBuffer in) {
+        int flags = in.get() & 0xFF;
+        TaskCodec<?> codec = BY_ID[flags & TYPE_MASK];
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown task type id " + (flags & TYPE_MASK));
+        }
+        Task t = codec.decode(flags, in);
+        if ((flags & DONE) != 0) {
+            t.markAsDone();
+        }
+        return t;
+    }
+
+    // Text helpers.
+
+    /** Appends {@code "X | d | "} for a task's tag and done state. */
+    static void putHead(char tag, Task t, CharBuffer out) {
+        out.put(tag).put(" | ").put(t.isDone() ? '1' : '0').put(" | ");
+    }
+
+    /**
+     * Appends a date/time exactly as {@link LocalDateTime#toString()} would.
+     *
+     * @param dt  the date/time
+     * @param out the buffer to append to
+     */
+    static void putIso(LocalDateTime dt, CharBuffer out) {
+        int year = dt.getYear();
+        if (Math.abs(year) < 1000) {
+            if (year < 0) {
+                out.put('-');
+            }
+            putDigits(Math.abs(year), 4, out);
+        } else {
+            if (year > 9999) {
+                out.put('+');
+            } else if (year < 0) {
+                out.put('-');
+            }
+            putDigits(Math.abs(year), 1, out);
+        }
+        out.put('-');
+        putDigits(dt.getMonthValue(), 2, out);
+        out.put('-');
+        putDigits(dt.getDayOfMonth(), 2, out);
+        out.put('T');
+        putDigits(dt.getHour(), 2, out);
+        out.put(':');
+        putDigits(dt.getMinute(), 2, out);
+        int sec = dt.getSecond();
+        int nano = dt.getNano();
+        if (sec > 0 || nano > 0) {
+            out.put(':');
+            putDigits(sec, 2, out);
+            if (nano > 0) {
+                out.put('.');
+                if (nano % 1_000_000 == 0) {
+                    putDigits(nano / 1_000_000, 3, out);
+                } else if (nano % 1000 == 0) {
+                    putDigits(nano / 1000, 6, out);
+                } else {
+                    putDigits(nano, 9, out);
+                }
+            }
+        }
+    }
+
+    /** Appends a non-negative number, left-padded with zeros to {@code width} digits. */
+    private static void putDigits(int v, int width, CharBuffer out) {
+        int digits = 1;
+        for (int x = v; x >= 10; x /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            out.put('0');
+        }
+        int pos = out.position() + digits;
+        out.position(pos);
+        for (int i = 1; i <= digits; i++) {
+            out.put(pos - i, (char) ('0' + v % 10));
+            v /= 10;
+        }
+    }
+
+    /** Returns the trimmed field {@code i} as a string. */
+    static String field(CharSequence line, int[] bounds, int i) {
+        return line.subSequence(bounds[2 * i], bounds[2 * i + 1]).toString();
+    }
+
+    /**
+     * Parses the date/time in field {@code i}. The {@code yyyy-MM-ddTHH:mm}
+     * form written by {@link #putIso} is read directly; anything else goes
+     * through {@link DateTimeUtil#parseDateTime(String)}.
+     *
+     * @return the date/time, or {@code null} if the text is not one
+     */
+    static LocalDateTime parseTime(CharSequence line, int[] bounds, int i) {
+        int s = bounds[2 * i];
+        int e = bounds[2 * i + 1];
+        if (e - s == 16 && line.charAt(s + 4) == '-' && line.charAt(s + 7) == '-'
+                && line.charAt(s + 10) == 'T' && line.charAt(s + 13) == ':') {
+            int year = digits(line, s, 4);
+            int month = digits(line, s + 5, 2);
+            int day = digits(line, s + 8, 2);
+            int hour = digits(line, s + 11, 2);
+            int minute = digits(line, s + 14, 2);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1
+                    && day <= Month.of(month).length(Year.isLeap(year))
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute);
+            }
+        }
+        return DateTimeUtil.parseDateTime(field(line, bounds, i)).orElse(null);
+    }
+
+    /** Reads {@code n} decimal digits, returning {@code -1} if any is not a digit. */
+    private static int digits(CharSequence s, int from, int n) {
+        int v = 0;
+        for (int i = from; i < from + n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    // Binary helpers.
+
+    /** Returns whether the time can be stored exactly as whole epoch minutes. */
+    static boolean isMinute(LocalDateTime dt) {
+        return dt != null && dt.getSecond() == 0 && dt.getNano() == 0;
+    }
+
+    /**
+     * Appends a time as epoch minutes if {@link #isMinute} holds, otherwise as
+     * text: its ISO form if parsed, or the raw text.
+     */
+    static void putTime(LocalDateTime dt, String raw, ByteBuffer out) {
+        if (isMinute(dt)) {
+            out.putLong(dt.toEpochSecond(ZoneOffset.UTC) / 60);
+        } else if (dt != null) {
+            CharBuffer iso = ISO.get();
+            iso.clear();
+            putIso(dt, iso);
+            iso.flip();
+            putString(iso, out);
+        } else {
+            putString(raw == null ? "" : raw, out);
+        }
+    }
+
+    /** Reads a time written by {@link #putTime} as epoch minutes. */
+    static LocalDateTime getMinute(ByteBuffer in) {
+        return LocalDateTime.ofEpochSecond(in.getLong() * 60, 0, ZoneOffset.UTC);
+    }
+
+    /** Appends a varint byte length followed by the UTF-8 bytes of the text. */
+    static void putString(CharSequence s, ByteBuffer out) {
+        int len = s.length();
+        putVarint(utf8Length(s), out);
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                out.put((byte) (0xF0 | (cp >> 18)));
+                out.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /** Returns the number of bytes {@link #putString} writes for the text, excluding the length. */
+    private static int utf8Length(CharSequence s) {
+        int len = s.length();
+        int bytes = 0;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /** Reads a string written by {@link #putString}. */
+    static String getString(ByteBuffer in) {
+        int len = getVarint(in);
+        if (len > in.remaining()) {
+            throw new java.nio.BufferUnderflowException();
+        }
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[len];
+            in.get(in.position(), bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + len);
+        return s;
+    }
+
+    /** Writes a non-negative int in 7-bit groups, low group first. */
+    static void putVarint(int v, ByteBuffer out) {
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    /** Reads an int written by {@link #putVarint}. */
+    static int getVarint(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("Corrupted length");
+    }
+}
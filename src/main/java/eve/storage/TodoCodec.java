@@ -0,0 +1,48 @@
+package eve.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import eve.tasks.Todo;
+
+/**
+ * Codec for {@link Todo}: {@code T | 1 | read book}.
+ */
+final class TodoCodec implements TaskCodec<Todo> {
+    @Override
+    public Class<Todo> type() {
+        return Todo.class;
+    }
+
+    @Override
+    public char tag() {
+        return 'T';
+    }
+
+    @Override
+    public int typeId() {
+        return 0;
+    }
+
+    @Override
+    public void encode(Todo task, CharBuffer out) {
+        TaskCodecs.putHead(tag(), task, out);
+        out.put(task.getDescription());
+    }
+
+    @Override
+    public Todo decode(CharSequence line, int[] bounds, int fields) {
+        return new Todo(TaskCodecs.field(line, bounds, 2));
+    }
+
+    @Override
+    public void encode(Todo task, ByteBuffer out) {
+        out.put((byte) (typeId() | (task.isDone() ? TaskCodecs.DONE : 0)));
+        TaskCodecs.putString(task.getDescription(), out);
+    }
+
+    @Override
+    public Todo decode(int flags, ByteBuffer in) {
+        return new Todo(TaskCodecs.getString(in));
+    }
+}
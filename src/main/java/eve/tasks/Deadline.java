@@ -34,6 +34,22 @@ public class Deadline extends Task {
         this.raw = (when == null) ? byText : null;
     }
 
+    /**
+     * Constructs a {@code Deadline} whose due date/time has already been
+     * parsed, so the text does not need to be parsed again.
+     *
+     * @param description the description of the deadline task
+     * @param when        the parsed due date/time, or {@code null} if it could
+     *                    not be parsed
+     * @param raw         the due date/time text to keep if {@code when} is
+     *                    {@code null}
+     */
+    public Deadline(String description, LocalDateTime when, String raw) {
+        super(description);
+        this.when = when;
+        this.raw = (when == null) ? raw : null;
+    }
+
     /**
      * Returns the parsed due date/time of this deadline.
      *
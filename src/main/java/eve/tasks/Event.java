@@ -42,6 +42,26 @@ public class Event extends Task {
         this.toRaw = (toDT == null) ? toText : null;
     }
 
+    /**
+     * Constructs an {@code Event} whose start and end have already been parsed,
+     * so the text does not need to be parsed again. For each end of the range,
+     * the raw text is kept only if the parsed value is {@code null}.
+     *
+     * @param description the description of the event
+     * @param fromDT      the parsed start, or {@code null} if it could not be parsed
+     * @param fromText    the start text to keep if {@code fromDT} is {@code null}
+     * @param toDT        the parsed end, or {@code null} if it could not be parsed
+     * @param toText      the end text to keep if {@code toDT} is {@code null}
+     */
+    public Event(String description, LocalDateTime fromDT, String fromText,
+            LocalDateTime toDT, String toText) {
+        super(description);
+        this.fromDT = fromDT;
+        this.toDT = toDT;
+        this.fromRaw = (fromDT == null) ? fromText : null;
+        this.toRaw = (toDT == null) ? toText : null;
+    }
+
     /**
      * Returns the parsed start datetime of this event.
      *
@@ -7,7 +7,7 @@ package eve.tasks;
  * should extend this class and implement their own type icon via
  * {@link #getTypeIcon()}.
  */
-public abstract class Task {
+public abstract class Task implements Cloneable {
     /** The description of the task, provided by the user. */
     protected String description;
 
@@ -34,6 +34,15 @@ public abstract class Task {
         return (isDone ? "X" : " ");
     }
 
+    /**
+     * Returns whether this task has been marked as done.
+     *
+     * @return {@code true} if done
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
     /**
      * Marks this task as done.
      */
@@ -48,6 +57,23 @@ public abstract class Task {
         this.isDone = false;
     }
 
+    /**
+     * Returns a copy of this task with the given done state, leaving this
+     * task unchanged.
+     *
+     * @param done the done state of the copy
+     * @return the copy
+     */
+    public Task withDone(boolean done) {
+        try {
+            Task copy = (Task) clone();
+            copy.isDone = done;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     /**
      * Returns the type icon used to distinguish different task types.
      * For example, {@code "T"} for Todo, {@code "D"} for Deadline,
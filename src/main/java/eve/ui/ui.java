@@ -1,10 +1,27 @@
 package eve.ui;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.Scanner;
 import java.util.List;
 
+import eve.TaskList.Change;
+import eve.TaskList.Slot;
 import eve.tasks.Task;
+import eve.util.CommandStats;
+import eve.util.CommandStats.Phase;
+import eve.util.DateTimeUtil;
+import eve.util.LatencyHistogram;
 
+/**
+ * Renders Eve's replies and reads commands from standard input.
+ * <p>
+ * Each reply is built by a {@code render*} method, which the GUI shows
+ * directly and the console prints with {@link #show(String)}. Long lists are the exception: {@link #showList(List)} writes each
+ * task straight to a buffered console writer instead of building the whole
+ * reply first.
+ */
 public class ui {
     private static final String LINE = "____________________________________________________________";
     private static final String LOGO = " ______   __      __   ______ \n"
@@ -13,7 +30,10 @@ public class ui {
             + "|  __|      \\ \\/ /    |  __| \n"
             + "| |____      \\  /     | |____ \n"
             + "|______|      \\/      |______|\n";
-    private final Scanner sc = new Scanner(System.in);
+    /** Reads console input; created on first use, since GUI and server instances never read. */
+    private Scanner sc;
+    /** Buffered console writer for output too long to build as one string; created on first use. */
+    private PrintWriter out;
 
     public void showWelcome() {
         System.out.println(LINE);
@@ -23,136 +43,141 @@ public class ui {
     }
 
     public String readCommand() {
+        if (sc == null) {
+            sc = new Scanner(System.in);
+        }
         if (!sc.hasNextLine())
             return null; // EOF
         return sc.nextLine();
     }
 
-    public void showLine() {
-        System.out.println(LINE);
+    /** Print a reply rendered by one of the {@code render*} methods. */
+    public void show(String reply) {
+        System.out.println(reply);
     }
 
-    public void showGoodbye() {
-        System.out.println(LINE);
-        System.out.println("Bye. Hope to see you again soon!");
+    public void showLine() {
         System.out.println(LINE);
     }
 
-    public void showUnknown() {
-        printWithLines("Sorry, I don't understand that. Type 'help' to see available commands.");
+    public void showGoodbye() {
+        show(renderGoodbye());
     }
 
     public void showError(String msg) {
-        printWithLines(msg);
+        show(renderError(msg));
     }
 
-    public void showAdded(Task t, int count) {
-        System.out.println(LINE);
-        System.out.println(" Got it. I've added this task:");
-        System.out.println("   " + t);
-        System.out.println(" Now you have " + count + (count == 1 ? " task" : " tasks") + " in the list.");
-        System.out.println(LINE);
-    }
-
-    public void showMarked(Task t, boolean toDone) {
-        System.out.println(LINE);
-        if (toDone)
-            System.out.println(" Nice! I've marked this task as done:");
-        else
-            System.out.println(" OK, I've marked this task as not done yet:");
-        System.out.println("   " + t);
-        System.out.println(LINE);
-    }
-
-    public void showDeleted(Task removed, int newCount) {
-        System.out.println(LINE);
-        System.out.println(" Noted. I've removed this task:");
-        System.out.println("   " + removed);
-        System.out.println(" Now you have " + newCount + (newCount == 1 ? " task" : " tasks") + " in the list.");
-        System.out.println(LINE);
+    /** Print a warning about something that went wrong outside any command, such as on shutdown. */
+    public void showWarning(String msg) {
+        System.out.println("Warning: " + msg);
     }
 
+    /**
+     * Print the whole list through one buffered writer, flushed once at the
+     * end, so that the first rows appear without waiting for the rest.
+     */
     public void showList(List<Task> tasks) {
-        System.out.println(LINE);
+        if (out == null) {
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+        }
+        out.append(LINE).append('\n');
         if (tasks.isEmpty()) {
-            System.out.println(" No tasks yet.");
+            out.append(" No tasks yet.\n");
         } else {
-            System.out.println(" Here are the tasks in your list:");
-            for (int i = 0; i < tasks.size(); i++) {
-                System.out.println(" " + (i + 1) + "." + tasks.get(i));
+            out.append(" Here are the tasks in your list:\n");
+            int i = 0;
+            for (Task t : tasks) {
+                out.append(' ').append(Integer.toString(++i)).append('.').append(t.toString()).append('\n');
             }
         }
-        System.out.println(LINE);
+        out.append(LINE).append('\n');
+        out.flush();
     }
 
-    /** Print search results in the required format. */
-    public void showFindResults(java.util.List<eve.tasks.Task> matches) {
-        System.out.println(LINE);
-        if (matches.isEmpty()) {
-            System.out.println(" No matching tasks found.");
-        } else {
-            System.out.println(" Here are the matching tasks in your list:");
-            for (int i = 0; i < matches.size(); i++) {
-                System.out.println(" " + (i + 1) + "." + matches.get(i));
-            }
-        }
-        System.out.println(LINE);
+    public void printWithLines(String message) {
+        show(renderWithLines(message));
     }
 
-    public void showHelp() {
-        System.out.println(LINE);
-        System.out.println(" Available commands:");
-        System.out.println("   help                             - Show this help message.");
-        System.out.println("   list                             - Show all tasks and status.");
-        System.out.println("   find <keyword>                   - Search tasks by keyword.");
-        System.out.println("   todo <desc>                      - Add a ToDo task.");
-        System.out.println("   deadline <desc> /by <time>       - Add a Deadline.");
-        System.out.println("   event <desc> /from <start> /to <end> - Add an Event.");
-        System.out.println("   mark N                           - Mark task N as done.");
-        System.out.println("   unmark N                         - Mark task N as not done.");
-        System.out.println("   delete N                         - Delete task N.");
-        System.out.println("   bye                              - Exit the program.");
-        System.out.println(LINE);
+    public String renderWithLines(String message) {
+        return String.join("\n", LINE, " " + message, LINE);
     }
 
-    public void printWithLines(String message) {
-        System.out.println(LINE);
-        System.out.println(" " + message);
-        System.out.println(LINE);
+    public String renderGoodbye() {
+        return String.join("\n", LINE, "Bye. Hope to see you again soon!", LINE);
+    }
+
+    public String renderUnknown() {
+        return renderWithLines("Sorry, I don't understand that. Type 'help' to see available commands.");
+    }
+
+    public String renderError(String msg) {
+        return renderWithLines(msg);
     }
 
     public String renderHelp() {
         return String.join("\n",
                 LINE,
-                " Commands:",
-                "  help                  - Show this help",
-                "  list                  - List tasks",
-                "  todo <desc>           - Add todo",
-                "  deadline <d> /by <t>  - Add deadline",
-                "  event <d> /from <s> /to <e> - Add event",
-                "  mark <n> / unmark <n> - Toggle done",
-                "  delete <n>            - Delete task",
-                "  find <kw>             - Search tasks (if you implemented Level-9)",
-                "  bye                   - Exit",
+                " Available commands:",
+                "   help                             - Show this help message.",
+                "   list                             - Show all tasks and status.",
+                "   list page N [size M]             - Show the Nth page of M tasks (default 20).",
+                "   find <keyword>                   - Search tasks by keyword.",
+                "   todo <desc>                      - Add a ToDo task.",
+                "   deadline <desc> /by <time>       - Add a Deadline.",
+                "   event <desc> /from <start> /to <end> - Add an Event.",
+                "   mark N[,M][,A-B]                 - Mark the given tasks as done.",
+                "   unmark N[,M][,A-B]               - Mark the given tasks as not done.",
+                "   delete N[,M][,A-B]               - Delete the given tasks.",
+                "   upcoming [N]                     - Show the next N deadlines not done yet.",
+                "   due <date>                       - Show deadlines not done by the end of <date>.",
+                "   clashes <start> /to <end>        - Show events overlapping a time range.",
+                "   free <date>                      - Show times not taken by events on <date>.",
+                "   undo                             - Undo the last change.",
+                "   redo                             - Redo the last undone change.",
+                "   batch begin|commit|rollback      - Group commands and save them once at commit.",
+                "   stats                            - Show how long each command takes.",
+                "   bye                              - Exit the program.",
                 LINE);
     }
 
     public String renderList(List<Task> tasks) {
+        return renderNumbered(tasks, " No tasks yet.", " Here are the tasks in your list:");
+    }
+
+    /**
+     * Renders one page of the list, numbering tasks by their place in the
+     * whole list. Only the tasks on the page are read.
+     */
+    public String renderListPage(List<Task> tasks, int page, int size) {
+        int total = tasks.size();
+        if (total == 0) {
+            return renderList(tasks);
+        }
+        int pages = (int) ((total + (long) size - 1) / size);
+        int from = (int) Math.min(total, (long) (page - 1) * size);
+        int to = (int) Math.min(total, (long) from + size);
         StringBuilder sb = new StringBuilder();
-        sb.append(LINE).append("\n Here are the tasks in your list:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append(" ").append(i + 1).append(".").append(tasks.get(i).toString()).append("\n");
+        sb.append(LINE).append("\n");
+        sb.append(" Here are tasks ").append(from + 1).append("-").append(to).append(" of ").append(total)
+                .append(" (page ").append(page).append(" of ").append(pages).append("):\n");
+        for (int i = from; i < to; i++) {
+            sb.append(" ").append(i + 1).append(".").append(tasks.get(i)).append("\n");
         }
         sb.append(LINE);
         return sb.toString();
     }
 
+    public String renderFindResults(List<Task> matches) {
+        return renderNumbered(matches, " No matching tasks found.", " Here are the matching tasks in your list:");
+    }
+
     public String renderAdded(Task t, int size) {
         return String.join("\n",
                 LINE,
                 " Got it. I've added this task:",
-                "   " + t.toString(),
-                " Now you have " + size + " tasks in the list.",
+                "   " + t,
+                " Now you have " + size + (size == 1 ? " task" : " tasks") + " in the list.",
                 LINE);
     }
 
@@ -160,7 +185,7 @@ public class ui {
         return String.join("\n",
                 LINE,
                 done ? " Nice! I've marked this task as done:" : " OK, I've marked this task as not done yet:",
-                "   " + t.toString(),
+                "   " + t,
                 LINE);
     }
 
@@ -168,8 +193,134 @@ public class ui {
         return String.join("\n",
                 LINE,
                 " Noted. I've removed this task:",
-                "   " + t.toString(),
-                " Now you have " + size + " tasks in the list.",
+                "   " + t,
+                " Now you have " + size + (size == 1 ? " task" : " tasks") + " in the list.",
                 LINE);
     }
+
+    public String renderMarkedAll(List<Task> tasks, boolean done) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LINE).append("\n");
+        sb.append(done ? " Nice! I've marked these tasks as done:\n" : " OK, I've marked these tasks as not done yet:\n");
+        for (Task t : tasks) {
+            sb.append("   ").append(t).append("\n");
+        }
+        sb.append(LINE);
+        return sb.toString();
+    }
+
+    public String renderDeletedAll(List<Task> removed, int size) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LINE).append("\n Noted. I've removed these ").append(removed.size()).append(" tasks:\n");
+        for (Task t : removed) {
+            sb.append("   ").append(t).append("\n");
+        }
+        sb.append(" Now you have ").append(size).append(size == 1 ? " task" : " tasks").append(" in the list.\n");
+        sb.append(LINE);
+        return sb.toString();
+    }
+
+    public String renderUndo(Change c, boolean redo) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LINE).append("\n ").append(redo ? "Redone. " : "Undone. ");
+        switch (c.effect) {
+            case INSERTED:
+                sb.append(c.tasks.size() == 1 ? "This task is back in the list:" : "These tasks are back in the list:");
+                break;
+            case REMOVED:
+                sb.append(c.tasks.size() == 1 ? "I've removed this task:" : "I've removed these tasks:");
+                break;
+            default:
+                sb.append(c.tasks.size() == 1 ? "This task is now:" : "These tasks are now:");
+                break;
+        }
+        sb.append("\n");
+        for (Task t : c.tasks) {
+            sb.append("   ").append(t).append("\n");
+        }
+        sb.append(LINE);
+        return sb.toString();
+    }
+
+    public String renderDeadlines(List<Task> deadlines) {
+        return renderNumbered(deadlines, " No pending deadlines found.", " Here are the pending deadlines:");
+    }
+
+    public String renderClashes(List<Task> events) {
+        return renderNumbered(events, " No clashing events found.", " Here are the events in that time:");
+    }
+
+    public String renderFreeSlots(List<Slot> slots) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LINE).append("\n");
+        if (slots.isEmpty()) {
+            sb.append(" No free time on that day.\n");
+        } else {
+            sb.append(" Here are your free slots:\n");
+            for (int i = 0; i < slots.size(); i++) {
+                sb.append(" ").append(i + 1).append(".").append(formatSlot(slots.get(i))).append("\n");
+            }
+        }
+        sb.append(LINE);
+        return sb.toString();
+    }
+
+    public String renderStats(CommandStats stats) {
+        List<String> commands = stats.commands();
+        StringBuilder sb = new StringBuilder();
+        sb.append(LINE).append("\n");
+        if (commands.isEmpty()) {
+            sb.append(" No commands timed yet.\n");
+        } else {
+            sb.append(" Command latency in microseconds:\n");
+            sb.append(String.format("   %-12s %7s %10s %10s %10s\n", "command", "count", "p50", "p99", "max"));
+            for (String command : commands) {
+                appendStatsRow(sb, command, stats.total(command));
+                for (Phase p : Phase.values()) {
+                    LatencyHistogram h = stats.phase(command, p);
+                    if (h.count() > 0) {
+                        appendStatsRow(sb, "  " + p.name().toLowerCase(), h);
+                    }
+                }
+            }
+        }
+        sb.append(LINE);
+        return sb.toString();
+    }
+
+    public String renderClashWarning(List<Task> clashes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LINE).append("\n Heads up, this event overlaps with:\n");
+        for (Task t : clashes) {
+            sb.append("   ").append(t).append("\n");
+        }
+        sb.append(LINE);
+        return sb.toString();
+    }
+
+    /** Renders a numbered list of tasks under a header, or a message if there are none. */
+    private static String renderNumbered(List<Task> tasks, String empty, String header) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LINE).append("\n");
+        if (tasks.isEmpty()) {
+            sb.append(empty).append("\n");
+        } else {
+            sb.append(header).append("\n");
+            int i = 0;
+            for (Task t : tasks) {
+                sb.append(" ").append(++i).append(".").append(t).append("\n");
+            }
+        }
+        sb.append(LINE);
+        return sb.toString();
+    }
+
+    private static void appendStatsRow(StringBuilder sb, String name, LatencyHistogram h) {
+        sb.append(String.format("   %-12s %7d %10.1f %10.1f %10.1f\n", name, h.count(),
+                h.percentile(50) / 1e3, h.percentile(99) / 1e3, h.max() / 1e3));
+    }
+
+    private static String formatSlot(Slot s) {
+        return DateTimeUtil.pretty(s.from) + " to " + DateTimeUtil.pretty(s.to);
+    }
 }
@@ -0,0 +1,251 @@
+package eve.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms for each command, split into the phases a command goes
+ * through.
+ * <p>
+ * A command's time is measured by a {@link Timer}: the caller starts it
+ * before the input is split, marks the end of each phase as the command runs,
+ * and stops it once the reply has been rendered. Time not marked as any other
+ * phase counts as rendering. When a command fails, the phase it failed in is
+ * closed with {@link Timer#failed()} before the error is rendered. Phases a command never reaches, such as
+ * persisting for {@code list}, are not recorded for it. Recording only
+ * touches {@link LatencyHistogram}s, so the histograms can be read from any
+ * thread while commands run.
+ */
+public final class CommandStats {
+    /** The phases of a command. */
+    public enum Phase {
+        /** Splitting the input and parsing the arguments. */
+        PARSE,
+        /** Changing or querying the task list. */
+        EXECUTE,
+        /** Writing the change to storage. */
+        PERSIST,
+        /** Building, and for the console printing, the reply. */
+        RENDER
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /** The histograms for one command: the total time, then one per phase. */
+    private static final class Entry {
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+
+        Entry() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the names of the commands recorded so far, sorted.
+     *
+     * @return the command names
+     */
+    public List<String> commands() {
+        return entries.keySet().stream().sorted().toList();
+    }
+
+    /**
+     * Returns the histogram of a command's total time.
+     *
+     * @param command the command name
+     * @return the histogram, empty if the command was never recorded
+     */
+    public LatencyHistogram total(String command) {
+        Entry e = entries.get(command);
+        return e == null ? new LatencyHistogram() : e.total;
+    }
+
+    /**
+     * Returns the histogram of the time a command spent in one phase.
+     *
+     * @param command the command name
+     * @param phase   the phase
+     * @return the histogram, empty if the command never reached the phase
+     */
+    public LatencyHistogram phase(String command, Phase phase) {
+        Entry e = entries.get(command);
+        return e == null ? new LatencyHistogram() : e.phases[phase.ordinal()];
+    }
+
+    /**
+     * Returns a new timer that records into these histograms. A timer is not
+     * thread-safe; each thread that runs commands needs its own.
+     *
+     * @return the timer
+     */
+    public Timer timer() {
+        return new Timer();
+    }
+
+    /**
+     * Writes every histogram to a file as CSV, one row per command and phase,
+     * with the percentiles in microseconds and the non-empty buckets as
+     * {@code upperBoundNanos:count} pairs so that dumps can be merged later.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("command,phase,count,p50_us,p99_us,max_us,buckets\n");
+            for (String command : commands()) {
+                Entry e = entries.get(command);
+                writeRow(w, command, "total", e.total);
+                for (Phase p : PHASES) {
+                    LatencyHistogram h = e.phases[p.ordinal()];
+                    if (h.count() > 0) {
+                        writeRow(w, command, p.name().toLowerCase(), h);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void writeRow(Writer w, String command, String phase, LatencyHistogram h) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(command).append(',').append(phase).append(',').append(h.count());
+        sb.append(String.format(",%.1f,%.1f,%.1f,", h.percentile(50) / 1e3, h.percentile(99) / 1e3, h.max() / 1e3));
+        long[] counts = h.counts();
+        boolean first = true;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                if (!first) {
+                    sb.append(' ');
+                }
+                first = false;
+                sb.append(LatencyHistogram.upperBound(i)).append(':').append(counts[i]);
+            }
+        }
+        w.write(sb.append('\n').toString());
+    }
+
+    /** Measures one command at a time on the thread that runs it. */
+    public final class Timer {
+        private final long[] spent = new long[PHASES.length];
+        private int reached;
+        private long start;
+        private long last;
+        private boolean running;
+
+        private Timer() {
+        }
+
+        /** Starts timing a command, discarding any command left unfinished. */
+        public void start() {
+            start = System.nanoTime();
+            last = start;
+            reached = 0;
+            Arrays.fill(spent, 0);
+            running = true;
+        }
+
+        /**
+         * Counts the time since the previous mark as spent in a phase. Does
+         * nothing if no command is being timed.
+         *
+         * @param phase the phase that just ended
+         */
+        public void lap(Phase phase) {
+            if (!running) {
+                return;
+            }
+            long now = System.nanoTime();
+            spent[phase.ordinal()] += now - last;
+            reached |= 1 << phase.ordinal();
+            last = now;
+        }
+
+        /**
+         * Marks the end of parsing and passes a parsed value through, so that
+         * a parse call can be wrapped in place.
+         *
+         * @param value the parsed value
+         * @param <T>   the value type
+         * @return {@code value}
+         */
+        public <T> T parsed(T value) {
+            lap(Phase.PARSE);
+            return value;
+        }
+
+        /**
+         * Marks the end of execution and passes a result through.
+         *
+         * @param value the result
+         * @param <T>   the value type
+         * @return {@code value}
+         */
+        public <T> T executed(T value) {
+            lap(Phase.EXECUTE);
+            return value;
+        }
+
+        /**
+         * Closes the phase a command was in when it failed: parsing if no
+         * phase has ended yet, otherwise the one after the last phase that
+         * ended. The time spent on the error reply then counts as rendering.
+         */
+        public void failed() {
+            int next = Integer.SIZE - Integer.numberOfLeadingZeros(reached);
+            if (next < Phase.RENDER.ordinal()) {
+                lap(PHASES[next]);
+            }
+        }
+
+        /**
+         * Returns the time since the command started.
+         *
+         * @return elapsed nanoseconds, or {@code 0} if no command is being timed
+         */
+        public long elapsed() {
+            return running ? System.nanoTime() - start : 0;
+        }
+
+        /**
+         * Stops timing and records the command. The time since the last mark
+         * counts as rendering.
+         *
+         * @param command the command name, or {@code null} to discard the timing
+         */
+        public void stop(String command) {
+            if (!running) {
+                return;
+            }
+            lap(Phase.RENDER);
+            running = false;
+            if (command == null) {
+                return;
+            }
+            Entry e = entries.get(command);
+            if (e == null) {
+                e = entries.computeIfAbsent(command, k -> new Entry());
+            }
+            e.total.record(last - start);
+            for (Phase p : PHASES) {
+                if ((reached & (1 << p.ordinal())) != 0) {
+                    e.phases[p.ordinal()].record(spent[p.ordinal()]);
+                }
+            }
+        }
+    }
+}
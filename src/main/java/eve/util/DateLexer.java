@@ -0,0 +1,224 @@
+package eve.util;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single-pass recognizer for the date/time shapes accepted by
+ * {@link DateTimeUtil#parseDateTime(String)}.
+ * <p>
+ * The input is split once into digit runs and the separators between them,
+ * and the common shapes are matched directly, without trying each formatter
+ * and catching its exception:
+ * <ul>
+ *   <li>{@code yyyy-MM-dd}, optionally followed by {@code THH:mm[:ss[.fffffffff]]},
+ *       {@code " HHmm"} or {@code " HH:mm"}</li>
+ *   <li>{@code d/M/yyyy}, {@code d-M-yyyy} and {@code d M yyyy}, optionally
+ *       followed by {@code " HHmm"} or {@code " HH:mm"}</li>
+ * </ul>
+ * Text containing a character that no pattern accepts (such as
+ * {@code "next monday"}) is rejected straight away. Whenever the answer is
+ * less clear, e.g. a day that the formatters would clamp to the end of the
+ * month or a year of more than four digits, {@link #UNSURE} is returned and
+ * the caller falls back to the formatters, so results always match theirs.
+ */
+final class DateLexer {
+    /** Returned when the input must be checked with the formatters instead. */
+    static final LocalDateTime UNSURE = LocalDateTime.MIN;
+
+    /** Most digit runs in any accepted shape: ISO date-time with a fraction. */
+    private static final int MAX_NUMBERS = 7;
+    /** Most digits kept in one run; longer runs are left to the formatters. */
+    private static final int MAX_DIGITS = 9;
+
+    private static final int[] POW10 = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
+    };
+
+    private DateLexer() {
+    }
+
+    /**
+     * Recognizes an already trimmed date/time string.
+     *
+     * @param s the trimmed input
+     * @return the parsed date/time, {@code null} if no supported format can
+     *         match, or {@link #UNSURE} if the formatters must decide
+     */
+    static LocalDateTime lex(String s) {
+        int len = s.length();
+        // Every pattern has at least three numeric fields.
+        int[] num = new int[MAX_NUMBERS];
+        int[] width = new int[MAX_NUMBERS];
+        char[] sep = new char[MAX_NUMBERS];
+        int count = 0;
+        boolean unsure = false;
+        int i = 0;
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int start = i;
+                int v = 0;
+                while (i < len && (c = s.charAt(i)) >= '0' && c <= '9') {
+                    if (i - start < MAX_DIGITS) {
+                        v = v * 10 + (c - '0');
+                    }
+                    i++;
+                }
+                if (count < MAX_NUMBERS) {
+                    num[count] = v;
+                    width[count] = i - start;
+                    sep[count] = 0;
+                } else {
+                    unsure = true;
+                }
+                if (i - start > MAX_DIGITS) {
+                    unsure = true;
+                }
+                count++;
+                continue;
+            }
+            if (!isPatternChar(c)) {
+                return null;
+            }
+            if (count == 0 || i + 1 == len || count > MAX_NUMBERS || sep[count - 1] != 0) {
+                // Leading signs, trailing or doubled separators.
+                unsure = true;
+            } else {
+                sep[count - 1] = c;
+            }
+            i++;
+        }
+        if (count < 3) {
+            return null;
+        }
+        if (unsure) {
+            return UNSURE;
+        }
+        if (width[0] == 4 && sep[0] == '-' && width[1] == 2 && sep[1] == '-' && width[2] == 2) {
+            return iso(num, width, sep, count);
+        }
+        if (width[0] <= 2 && width[1] <= 2 && width[2] == 4 && sep[0] == sep[1]) {
+            if (sep[0] == '/' || sep[0] == '-') {
+                int t = time(num, width, sep, count);
+                return t < 0 ? UNSURE : dated(num[2], num[1], num[0], t);
+            }
+            if (sep[0] == ' ') {
+                return spaced(num, width, sep, count);
+            }
+        }
+        return UNSURE;
+    }
+
+    /** Returns whether any supported pattern can contain {@code c} outside a number. */
+    private static boolean isPatternChar(char c) {
+        return c == '-' || c == '/' || c == ' ' || c == ':' || c == 'T' || c == 't' || c == '.' || c == '+';
+    }
+
+    /** Handles shapes starting with an ISO {@code yyyy-MM-dd} date. */
+    private static LocalDateTime iso(int[] num, int[] width, char[] sep, int count) {
+        if (count == 3) {
+            return dated(num[0], num[1], num[2], 0);
+        }
+        if (sep[2] == 'T' || sep[2] == 't') {
+            if (count < 5 || width[3] != 2 || sep[3] != ':' || width[4] != 2) {
+                return UNSURE;
+            }
+            int second = 0;
+            int nano = 0;
+            if (count >= 6) {
+                if (sep[4] != ':' || width[5] != 2) {
+                    return UNSURE;
+                }
+                second = num[5];
+                if (count == 7) {
+                    if (sep[5] != '.') {
+                        return UNSURE;
+                    }
+                    nano = num[6] * POW10[MAX_DIGITS - width[6]];
+                }
+            }
+            if (num[3] > 23 || num[4] > 59 || second > 59) {
+                return UNSURE;
+            }
+            LocalDateTime d = dated(num[0], num[1], num[2], num[3] * 60 + num[4]);
+            return d == UNSURE ? d : d.withSecond(second).withNano(nano);
+        }
+        int t = time(num, width, sep, count);
+        return t < 0 ? UNSURE : dated(num[0], num[1], num[2], t);
+    }
+
+    /**
+     * Handles {@code d M yyyy}. With a time the formatters try month-first
+     * before day-first, and without one day-first before month-first.
+     */
+    private static LocalDateTime spaced(int[] num, int[] width, char[] sep, int count) {
+        int t = time(num, width, sep, count);
+        if (t < 0) {
+            return UNSURE;
+        }
+        boolean monthFirst = count > 3;
+        int first = monthFirst ? 1 : 0;
+        for (int k = 0; k < 2; k++, first ^= 1) {
+            int day = num[first];
+            int month = num[first ^ 1];
+            if (month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+                return dated(num[2], month, day, t);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the optional {@code " HHmm"} or {@code " HH:mm"} after the date,
+     * which starts at number 3.
+     *
+     * @return minutes since midnight, or {@code -1} if the rest of the input
+     *         is not one of these shapes or the time is out of range
+     */
+    private static int time(int[] num, int[] width, char[] sep, int count) {
+        if (count == 3) {
+            return 0;
+        }
+        if (sep[2] != ' ') {
+            return -1;
+        }
+        int hour;
+        int minute;
+        if (count == 4 && width[3] == 4) {
+            hour = num[3] / 100;
+            minute = num[3] % 100;
+        } else if (count == 5 && width[3] == 2 && sep[3] == ':' && width[4] == 2) {
+            hour = num[3];
+            minute = num[4];
+        } else {
+            return -1;
+        }
+        return hour > 23 || minute > 59 ? -1 : hour * 60 + minute;
+    }
+
+    /**
+     * Builds the date/time if the date is valid; days that do not exist in
+     * the month are left to the formatters, which may clamp them.
+     */
+    private static LocalDateTime dated(int year, int month, int day, int minutes) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return UNSURE;
+        }
+        return LocalDateTime.of(year, month, day, minutes / 60, minutes % 60);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
@@ -65,6 +65,15 @@ public final class DateTimeUtil {
             .appendPattern("d M uuuu HH:mm").toFormatter()                       // 2 12 2019 18:00
     );
 
+    /** Maximum entries in each cache, set with the {@code eve.dateCache} system property. */
+    private static final int CACHE_SIZE = Math.max(1, Integer.getInteger("eve.dateCache", 1024));
+    /** Parse results by trimmed input, including empty results for unparseable text. */
+    private static final MemoCache<String, Optional<LocalDateTime>> PARSE_CACHE = new MemoCache<>(CACHE_SIZE);
+    /** Results of {@link #pretty(LocalDateTime)}. */
+    private static final MemoCache<LocalDateTime, String> PRETTY_CACHE = new MemoCache<>(CACHE_SIZE);
+    /** Results of {@link #toIso(LocalDateTime)}. */
+    private static final MemoCache<LocalDateTime, String> ISO_CACHE = new MemoCache<>(CACHE_SIZE);
+
     /** Output format for dates (no leading zeros). */
     private static final DateTimeFormatter OUT_DATE = DateTimeFormatter.ofPattern("yyyy/M/d");       
     /** Output format for date-times (no leading zeros for day/month). */
@@ -77,13 +86,33 @@ public final class DateTimeUtil {
      *   <li>If the string matches a date-only format, a {@code LocalDateTime} at midnight is returned.</li>
      *   <li>If parsing fails for all formats, {@link Optional#empty()} is returned.</li>
      * </ul>
+     * Common shapes are recognized in a single pass by {@link DateLexer}; the
+     * formatters are only tried for unusual input. Results are cached by the
+     * trimmed input.
      *
      * @param s the input string
      * @return an {@code Optional} containing the parsed date/time, or empty if none match
      */
     public static Optional<LocalDateTime> parseDateTime(String s) {
         if (s == null) return Optional.empty();
-        String x = s.trim();
+        return PARSE_CACHE.get(s.trim(), DateTimeUtil::parseUncached);
+    }
+
+    /** Parses a trimmed string without consulting the cache. */
+    static Optional<LocalDateTime> parseUncached(String x) {
+        LocalDateTime lexed = DateLexer.lex(x);
+        if (lexed != DateLexer.UNSURE) return Optional.ofNullable(lexed);
+        return parseWithFormatters(x);
+    }
+
+    /**
+     * Parses a trimmed string by trying each pattern in turn. This is the
+     * reference behaviour that {@link DateLexer} reproduces for common input.
+     *
+     * @param x the trimmed input string
+     * @return an {@code Optional} containing the parsed date/time, or empty if none match
+     */
+    static Optional<LocalDateTime> parseWithFormatters(String x) {
         for (DateTimeFormatter f : DATETIME_PATTERNS) {
             try { return Optional.of(LocalDateTime.parse(x, f)); } catch (Exception ignored) {}
         }
@@ -96,23 +125,58 @@ public final class DateTimeUtil {
     /**
      * Formats a {@link LocalDateTime} into a user-friendly string.
      * If the time component is midnight (00:00), only the date is shown.
+     * Results are cached.
      *
      * @param dt the date/time to format
      * @return a pretty string (e.g. {@code 2019/12/2} or {@code 2019/12/2 18:00})
      */
     public static String pretty(LocalDateTime dt) {
+        return PRETTY_CACHE.get(dt, DateTimeUtil::prettyUncached);
+    }
+
+    private static String prettyUncached(LocalDateTime dt) {
         if (dt.toLocalTime().equals(LocalTime.MIDNIGHT)) return dt.toLocalDate().format(OUT_DATE);
         return dt.format(OUT_DT);
     }
 
     /**
      * Converts a {@link LocalDateTime} into its ISO-8601 string form.
-     * Useful for persistent storage in save files.
+     * Useful for persistent storage in save files. Results are cached.
      *
      * @param dt the date/time to convert
      * @return ISO-8601 string (e.g. {@code 2019-12-02T18:00})
      */
     public static String toIso(LocalDateTime dt) { 
-        return dt.toString(); 
+        return ISO_CACHE.get(dt, LocalDateTime::toString);
+    }
+
+    /**
+     * Returns the cache of {@link #parseDateTime(String)} results, for its
+     * hit and miss counts.
+     *
+     * @return the parse cache
+     */
+    public static MemoCache<String, Optional<LocalDateTime>> parseCache() {
+        return PARSE_CACHE;
+    }
+
+    /**
+     * Returns the cache of {@link #pretty(LocalDateTime)} results, for its
+     * hit and miss counts.
+     *
+     * @return the pretty-print cache
+     */
+    public static MemoCache<LocalDateTime, String> prettyCache() {
+        return PRETTY_CACHE;
+    }
+
+    /**
+     * Returns the cache of {@link #toIso(LocalDateTime)} results, for its
+     * hit and miss counts.
+     *
+     * @return the ISO format cache
+     */
+    public static MemoCache<LocalDateTime, String> isoCache() {
+        return ISO_CACHE;
     }
 }
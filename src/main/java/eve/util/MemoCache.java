@@ -0,0 +1,118 @@
+package eve.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe memo table that evicts the least recently used
+ * entry once it is full.
+ * <p>
+ * Values are computed outside the lock, so two threads missing on the same
+ * key may both compute it; the functions cached here are pure, so either
+ * result is fine. Hits and misses are counted to help size the cache.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class MemoCache<K, V> {
+    private final int capacity;
+    private final Map<K, V> map;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache holding at most {@code capacity} entries.
+     *
+     * @param capacity the maximum number of entries, at least 1
+     * @throws IllegalArgumentException if {@code capacity} is less than 1
+     */
+    public MemoCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > MemoCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for a key, computing and caching it on a miss.
+     * {@code null} values are not cached.
+     *
+     * @param key     the key
+     * @param compute computes the value for a key that is not cached
+     * @return the cached or computed value
+     */
+    public V get(K key, Function<? super K, ? extends V> compute) {
+        V v;
+        synchronized (map) {
+            v = map.get(key);
+        }
+        if (v != null) {
+            hits.increment();
+            return v;
+        }
+        misses.increment();
+        v = compute.apply(key);
+        if (v != null) {
+            synchronized (map) {
+                map.put(key, v);
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to compute their value.
+     *
+     * @return the miss count
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the current size
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Returns the maximum number of cached entries.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns a one-line summary, e.g. {@code 120/1024 entries, 9876 hits, 120 misses}.
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return size() + "/" + capacity + " entries, " + hits() + " hits, " + misses() + " misses";
+    }
+}
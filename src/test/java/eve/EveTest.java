@@ -0,0 +1,107 @@
+package eve;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void batch_rollback_restoresTasksAndKeepsUndo() {
+        Path file = dir.resolve("eve.txt");
+        Eve eve = new Eve(file);
+        eve.getResponse("todo read book");
+        eve.getResponse("batch begin");
+        eve.getResponse("todo buy milk");
+        eve.getResponse("mark 1");
+        assertTrue(eve.getResponse("batch rollback").contains("Batch rolled back"));
+
+        String list = eve.getResponse("list");
+        assertTrue(list.contains("[T][ ] read book"));
+        assertFalse(list.contains("buy milk"));
+        assertTrue(eve.getResponse("undo").contains("read book"));
+        assertEquals(0, eve.taskCount());
+        eve.shutdown();
+        assertEquals(0, new Eve(file).taskCount());
+    }
+
+    @Test
+    void batch_commit_keepsChangesAndSaves() {
+        Path file = dir.resolve("eve.txt");
+        Eve eve = new Eve(file);
+        assertTrue(eve.getResponse("batch commit").contains("No batch is open"));
+        eve.getResponse("batch begin");
+        eve.getResponse("todo read book");
+        eve.getResponse("todo buy milk");
+        assertTrue(eve.getResponse("batch commit").contains("Batch committed: 2 commands"));
+        assertEquals(2, new Eve(file).taskCount());
+
+        assertTrue(eve.getResponse("undo").contains("buy milk"));
+        eve.shutdown();
+    }
+
+    @Test
+    void batch_failedCommand_rollsBackWholeBatch() {
+        Eve eve = new Eve(dir.resolve("eve.txt"));
+        eve.getResponse("todo read book");
+        eve.getResponse("batch begin");
+        eve.getResponse("delete 1");
+        assertTrue(eve.getResponse("mark 5").contains("Batch rolled back"));
+        assertEquals(1, eve.taskCount());
+        assertTrue(eve.getResponse("batch commit").contains("No batch is open"));
+        eve.shutdown();
+    }
+
+    @Test
+    void bye_withOpenBatch_commitsIt() {
+        Path file = dir.resolve("eve.txt");
+        Eve eve = new Eve(file);
+        eve.getResponse("batch begin");
+        eve.getResponse("todo read book");
+        String reply = eve.getResponse("bye");
+        assertTrue(reply.contains("Batch committed: 1 command"));
+        assertTrue(reply.contains("Bye"));
+        assertEquals(1, new Eve(file).taskCount());
+
+        Eve other = new Eve(dir.resolve("other.txt"));
+        other.getResponse("batch begin");
+        other.getResponse("todo buy milk");
+        other.shutdown();
+        assertEquals(1, new Eve(dir.resolve("other.txt")).taskCount());
+    }
+
+    @Test
+    void runScript_success_savesOnceAndTimesEveryLine() {
+        Path file = dir.resolve("eve.txt");
+        Eve eve = new Eve(file);
+        String reply = eve.runScript(List.of("todo read book", "", "todo buy milk", "mark 1"));
+        assertTrue(reply.contains("Batch committed: 3 commands"));
+        assertEquals(2, new Eve(file).taskCount());
+        assertTrue(eve.getResponse("stats").matches("(?s).*\\btodo +2 .*"));
+        assertTrue(eve.getResponse("undo").contains("read book"));
+        eve.shutdown();
+    }
+
+    @Test
+    void runScript_failingLine_rollsBackEverything() {
+        Path file = dir.resolve("eve.txt");
+        Eve eve = new Eve(file);
+        eve.getResponse("todo read book");
+        String reply = eve.runScript(List.of("todo buy milk", "delete 1", "mark 5", "todo never"));
+        assertTrue(reply.contains("Line 3:"));
+        assertTrue(reply.contains("Script rolled back"));
+        assertEquals(1, eve.taskCount());
+        assertTrue(eve.getResponse("list").contains("read book"));
+        assertTrue(eve.getResponse("stats").matches("(?s).*\\bmark +1 .*"));
+        assertTrue(eve.runScript(List.of("batch begin")).contains("Line 1:"));
+        eve.shutdown();
+        assertEquals(1, new Eve(file).taskCount());
+    }
+}
@@ -0,0 +1,215 @@
+package eve;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests that run writers and lock-free readers of a {@link TaskList}
+ * at the same time and check that no update is lost and every snapshot is
+ * consistent.
+ */
+public class TaskListConcurrencyTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int ADDS_PER_WRITER = 5000;
+
+    /** Runs every action on its own thread, all starting together, and rethrows the first failure. */
+    private static void runTogether(List<Runnable> actions) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable action : actions) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    action.run();
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join(60_000);
+            assertFalse(t.isAlive(), "thread did not finish");
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError("concurrent check failed", failures.peek());
+        }
+    }
+
+    private static int writerOf(Task t) {
+        String d = t.getDescription();
+        return Integer.parseInt(d.substring(1, d.indexOf('-')));
+    }
+
+    private static int seqOf(Task t) {
+        String d = t.getDescription();
+        return Integer.parseInt(d.substring(d.indexOf('-') + 1));
+    }
+
+    /** Checks that a snapshot agrees with itself and keeps each writer's tasks in order. */
+    private static void checkSnapshot(List<Task> snap) {
+        int size = snap.size();
+        int[] lastSeq = new int[WRITERS];
+        java.util.Arrays.fill(lastSeq, -1);
+        int count = 0;
+        Iterator<Task> it = snap.iterator();
+        while (it.hasNext()) {
+            Task t = it.next();
+            int w = writerOf(t);
+            int seq = seqOf(t);
+            if (seq <= lastSeq[w]) {
+                throw new AssertionError("writer " + w + " out of order: " + seq + " after " + lastSeq[w]);
+            }
+            lastSeq[w] = seq;
+            if (count % 97 == 0 && snap.get(count) != t) {
+                throw new AssertionError("get(" + count + ") disagrees with iteration");
+            }
+            count++;
+        }
+        if (count != size) {
+            throw new AssertionError("iterated " + count + " tasks but size is " + size);
+        }
+    }
+
+    @Test
+    void concurrentAdds_noneLost_snapshotsConsistent() throws InterruptedException {
+        TaskList list = new TaskList();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        List<Runnable> actions = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            actions.add(() -> {
+                for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                    list.add(new Todo("w" + writer + "-" + i));
+                }
+                writersDone.countDown();
+            });
+        }
+        actions.add(() -> {
+            try {
+                writersDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writing.set(false);
+        });
+        for (int r = 0; r < READERS; r++) {
+            actions.add(() -> {
+                int lastSize = 0;
+                do {
+                    List<Task> snap = list.asList();
+                    checkSnapshot(snap);
+                    if (snap.size() < lastSize) {
+                        throw new AssertionError("snapshot shrank from " + lastSize + " to " + snap.size());
+                    }
+                    lastSize = snap.size();
+                } while (writing.get());
+            });
+        }
+        runTogether(actions);
+
+        assertEquals(WRITERS * ADDS_PER_WRITER, list.size());
+        checkSnapshot(list.asList());
+        for (int i = 1; i < list.size(); i++) {
+            assertTrue(list.idAt(i - 1) < list.idAt(i));
+        }
+        assertEquals(ADDS_PER_WRITER, list.find("w2-").size());
+    }
+
+    @Test
+    void mixedWritersAndReaders_indexesMatchFinalList() throws InterruptedException {
+        TaskList list = new TaskList();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        List<Runnable> actions = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            actions.add(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < ADDS_PER_WRITER; i++) {
+                    list.add(new Todo("w" + writer + "-" + i));
+                    int size = list.size();
+                    try {
+                        if (rnd.nextInt(3) == 0) {
+                            list.deleteAt(rnd.nextInt(size));
+                        } else if (rnd.nextInt(2) == 0) {
+                            list.setDone(rnd.nextInt(size), rnd.nextBoolean());
+                        } else if (rnd.nextInt(50) == 0) {
+                            list.deleteAll(new int[] {0, 1});
+                        }
+                    } catch (IndexOutOfBoundsException e) {
+                        // another writer shrank the list since size() was read
+                    }
+                }
+                writersDone.countDown();
+            });
+        }
+        actions.add(() -> {
+            try {
+                writersDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writing.set(false);
+        });
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            actions.add(() -> {
+                do {
+                    checkSnapshot(list.asList());
+                    for (Task t : list.find("w" + reader + "-1")) {
+                        if (!t.getDescription().contains("w" + reader + "-1")) {
+                            throw new AssertionError("find returned " + t);
+                        }
+                    }
+                } while (writing.get());
+            });
+        }
+        runTogether(actions);
+
+        List<Task> all = list.asList();
+        checkSnapshot(all);
+        for (String needle : new String[] {"w0-", "w3-12", "-1", "w"}) {
+            List<Task> expected = new ArrayList<>();
+            for (Task t : all) {
+                if (t.getDescription().contains(needle)) {
+                    expected.add(t);
+                }
+            }
+            assertEquals(expected, list.find(needle), needle);
+        }
+    }
+
+    @Test
+    void snapshot_unchangedByLaterWrites() {
+        TaskList list = new TaskList(List.of(new Todo("w0-0"), new Todo("w0-1"), new Todo("w0-2")));
+        List<Task> before = list.asList();
+        Task first = before.get(0);
+        list.deleteAt(0);
+        list.add(new Todo("w0-3"));
+        list.deleteAll(new int[] {0, 1});
+        assertEquals(3, before.size());
+        assertSame(first, before.get(0));
+        assertEquals("w0-2", before.get(2).getDescription());
+        assertEquals(1, list.size());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(new Todo("x")));
+    }
+}
@@ -0,0 +1,345 @@
+package eve;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import eve.tasks.Deadline;
+import eve.tasks.Event;
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskListTest {
+
+    private static List<Task> scan(List<Task> tasks, String needle) {
+        String n = needle.toLowerCase();
+        List<Task> out = new ArrayList<>();
+        for (Task t : tasks) {
+            if (t.getDescription().toLowerCase().contains(n)) {
+                out.add(t);
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void find_caseInsensitive_listOrder() {
+        TaskList list = new TaskList(List.of(new Todo("Read Book"), new Todo("return book"), new Todo("bo")));
+        list.add(new Todo("BOOKshelf"));
+        assertEquals(List.of(list.get(0), list.get(1), list.get(3)), list.find("BOOK"));
+        assertEquals(List.of(list.get(0), list.get(1), list.get(2), list.get(3)), list.find("bo"));
+        assertEquals(4, list.find("").size());
+        assertTrue(list.find("shelves").isEmpty());
+        list.deleteAt(0);
+        assertEquals(List.of(list.get(0), list.get(2)), list.find("ook"));
+    }
+
+    @Test
+    void find_randomAddsAndDeletes_matchesScan() {
+        Random rnd = new Random(7);
+        String[] words = {"read", "book", "return", "Bookshelf", "meeting", "aaa", "aaaa", "café", "x"};
+        String[] needles = {"boo", "BOOK", "aaa", "aa", "ee", "eti", "café", "é", "ok sh", "read book", "zzz"};
+        TaskList list = new TaskList();
+        for (int step = 0; step < 5000; step++) {
+            if (list.size() > 0 && rnd.nextInt(3) == 0) {
+                list.deleteAt(rnd.nextInt(list.size()));
+            } else {
+                list.add(new Todo(words[rnd.nextInt(words.length)] + " " + words[rnd.nextInt(words.length)]));
+            }
+            if (step % 50 == 0) {
+                for (String n : needles) {
+                    assertEquals(scan(list.asList(), n), list.find(n), n);
+                }
+            }
+        }
+    }
+
+    @Test
+    void upcomingAndDue_skipDoneAndUndated_sortedByTime() {
+        TaskList list = new TaskList();
+        Task late = list.add(new Deadline("late", "2019-12-05"));
+        Task early = list.add(new Deadline("early", "2019-12-01 1800"));
+        list.add(new Deadline("whenever", "someday"));
+        list.add(new Todo("todo"));
+        Task tie = list.add(new Deadline("tie", "2019-12-05"));
+        list.add(new Deadline("done", "2019-12-03"));
+        list.setDone(5, true);
+        LocalDateTime from = LocalDateTime.of(2019, 12, 2, 0, 0);
+
+        assertEquals(List.of(late, tie), list.upcoming(from, 5));
+        assertEquals(List.of(late), list.upcoming(from, 1));
+        assertEquals(List.of(early), list.dueBefore(LocalDateTime.of(2019, 12, 5, 0, 0)));
+        assertEquals(List.of(early, late, tie), list.dueBefore(LocalDateTime.of(2019, 12, 6, 0, 0)));
+
+        Task done = list.setDone(5, false);
+        assertEquals(List.of(done, late, tie), list.upcoming(from, 5));
+        list.deleteAt(0);
+        assertEquals(List.of(done, tie), list.upcoming(from, 5));
+    }
+
+    @Test
+    void clashesAndFreeSlots_halfOpenRanges() {
+        TaskList list = new TaskList();
+        Task a = list.add(new Event("a", "2019-12-02 0900", "2019-12-02 1100"));
+        Task b = list.add(new Event("b", "2019-12-02 1000", "2019-12-02 1200"));
+        list.add(new Event("raw", "next Mon", "2019-12-02 1300"));
+        Task c = list.add(new Event("c", "2019-12-02 1400", "2019-12-02 1600"));
+        LocalDateTime day = LocalDateTime.of(2019, 12, 2, 0, 0);
+
+        assertEquals(List.of(a, b), list.clashes(day.plusHours(10), day.plusHours(14)));
+        assertTrue(list.clashes(day.plusHours(12), day.plusHours(14)).isEmpty());
+        assertEquals(List.of(c), list.clashes(day.plusHours(15), day.plusHours(15).plusMinutes(1)));
+
+        List<TaskList.Slot> free = list.freeSlots(day, day.plusDays(1));
+        assertEquals(3, free.size());
+        assertEquals(day, free.get(0).from);
+        assertEquals(day.plusHours(9), free.get(0).to);
+        assertEquals(day.plusHours(12), free.get(1).from);
+        assertEquals(day.plusHours(14), free.get(1).to);
+        assertEquals(day.plusDays(1), free.get(2).to);
+
+        list.deleteAt(1);
+        assertEquals(List.of(a), list.clashes(day.plusHours(10), day.plusHours(14)));
+    }
+
+    @Test
+    void clashes_randomAddsAndDeletes_matchesScan() {
+        Random rnd = new Random(11);
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        TaskList list = new TaskList();
+        for (int step = 0; step < 3000; step++) {
+            if (list.size() > 0 && rnd.nextInt(3) == 0) {
+                list.deleteAt(rnd.nextInt(list.size()));
+            } else {
+                LocalDateTime from = base.plusHours(rnd.nextInt(500));
+                list.add(new Event("e" + step, from.toString(), from.plusHours(rnd.nextInt(30)).toString()));
+            }
+            if (step % 25 == 0) {
+                LocalDateTime qFrom = base.plusHours(rnd.nextInt(500));
+                LocalDateTime qTo = qFrom.plusHours(rnd.nextInt(20));
+                List<Task> expected = new ArrayList<>();
+                for (Task t : list.asList()) {
+                    Event e = (Event) t;
+                    if (e.getFromDT().isBefore(qTo) && e.getToDT().isAfter(qFrom)) {
+                        expected.add(t);
+                    }
+                }
+                expected.sort((x, y) -> ((Event) x).getFromDT().compareTo(((Event) y).getFromDT()));
+                assertEquals(expected, list.clashes(qFrom, qTo));
+            }
+        }
+    }
+
+    @Test
+    void deleteAll_matchesRepeatedDeleteAt() {
+        Random rnd = new Random(15);
+        for (int round = 0; round < 200; round++) {
+            List<Task> initial = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                initial.add(i % 3 == 0
+                        ? new Deadline("d" + i, LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(i), "x")
+                        : new Todo("task " + i));
+            }
+            TaskList bulk = new TaskList(initial);
+            TaskList single = new TaskList(initial);
+            int[] idx0s = rnd.ints(rnd.nextInt(40), 0, 40).distinct().sorted().toArray();
+            List<Task> removed = bulk.deleteAll(idx0s);
+            for (int k = idx0s.length - 1; k >= 0; k--) {
+                assertSame(single.get(idx0s[k]), removed.get(k));
+                single.deleteAt(idx0s[k]);
+            }
+            assertEquals(single.asList(), bulk.asList());
+            assertEquals(single.find("task 1"), bulk.find("task 1"));
+            assertEquals(single.upcoming(LocalDateTime.MIN, 50), bulk.upcoming(LocalDateTime.MIN, 50));
+        }
+    }
+
+    @Test
+    void stableIds_surviveDeletesAndMatchPositions() {
+        Random rnd = new Random(16);
+        TaskList list = new TaskList(List.of(new Todo("a"), new Todo("b"), new Todo("c")));
+        List<Task> model = new ArrayList<>(list.asList());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) {
+            ids.add(list.idAt(i));
+        }
+        for (int step = 0; step < 20000; step++) {
+            int r = rnd.nextInt(10);
+            if (r < 5 || model.isEmpty()) {
+                Task t = list.add(new Todo("t" + step));
+                model.add(t);
+                ids.add(list.idAt(list.size() - 1));
+            } else if (r < 8) {
+                int idx0 = rnd.nextInt(model.size());
+                assertSame(model.remove(idx0), list.deleteAt(idx0));
+                long gone = ids.remove(idx0);
+                assertEquals(-1, list.indexOf(gone));
+            } else {
+                int[] idx0s = rnd.ints(rnd.nextInt(model.size() + 1), 0, model.size())
+                        .distinct().sorted().toArray();
+                List<Task> removed = list.deleteAll(idx0s);
+                for (int k = idx0s.length - 1; k >= 0; k--) {
+                    assertSame(model.remove(idx0s[k]), removed.get(k));
+                    ids.remove(idx0s[k]);
+                }
+            }
+            if (step % 500 == 0) {
+                assertEquals(model, list.asList());
+                for (int i = 0; i < model.size(); i++) {
+                    assertSame(model.get(i), list.get(i));
+                    assertEquals((long) ids.get(i), list.idAt(i));
+                    assertEquals(i, list.indexOf(ids.get(i)));
+                }
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(list.size()));
+    }
+
+    @Test
+    void rollback_revertsChangesSinceCheckpoint_keepingHistoryAndIndexes() {
+        TaskList list = new TaskList();
+        Task a = list.add(new Todo("alpha"));
+        list.add(new Deadline("beta", "2019-12-05"));
+        list.checkpoint();
+        list.add(new Todo("gamma"));
+        list.setDone(1, true);
+        list.deleteAt(0);
+        list.undo();
+        list.undo();
+        list.undo();
+        list.undo();
+        List<Task> expected = List.copyOf(new TaskList(List.of(a)).asList());
+
+        list.rollback();
+        assertEquals(2, list.size());
+        assertSame(a, list.get(0));
+        assertFalse(list.get(1).isDone());
+        assertEquals(List.of(a), list.find("alpha"));
+        assertEquals(List.of(), list.find("gamma"));
+        assertEquals(List.of(list.get(1)), list.dueBefore(LocalDateTime.MAX));
+        assertEquals(2, list.undoDepth());
+        assertNotNull(list.undo());
+        assertEquals(expected, list.asList());
+        assertThrows(IllegalStateException.class, list::rollback);
+    }
+
+    @Test
+    void release_keepsChangesSinceCheckpoint() {
+        TaskList list = new TaskList();
+        list.checkpoint();
+        list.add(new Todo("alpha"));
+        list.release();
+        assertEquals(1, list.size());
+        assertEquals(1, list.undoDepth());
+        assertThrows(IllegalStateException.class, list::rollback);
+    }
+
+    @Test
+    void asList_laterMarks_doNotChangeSnapshot() {
+        TaskList list = new TaskList(List.of(new Todo("a"), new Todo("b")));
+        List<Task> before = list.asList();
+        list.setDoneAll(new int[] {0, 1}, true);
+        List<Task> marked = list.asList();
+        list.undo();
+
+        assertFalse(before.get(0).isDone());
+        assertFalse(before.get(1).isDone());
+        assertTrue(marked.get(0).isDone());
+        assertTrue(marked.get(1).isDone());
+        assertSame(before.get(0), list.get(0));
+        assertEquals(List.of(list.get(0)), list.find("a"));
+    }
+
+    @Test
+    void undoRedo_randomChanges_matchRecordedStates() {
+        Random rnd = new Random(18);
+        TaskList list = new TaskList(List.of(), 1000, Long.MAX_VALUE);
+        List<List<Task>> states = new ArrayList<>();
+        List<List<Boolean>> flags = new ArrayList<>();
+        int current = 0;
+        states.add(List.copyOf(list.asList()));
+        flags.add(List.of());
+        for (int step = 0; step < 3000; step++) {
+            int r = rnd.nextInt(10);
+            if (r < 2 && current > 0) {
+                assertNotNull(list.undo());
+                current--;
+            } else if (r < 3 && current + 1 < states.size()) {
+                assertNotNull(list.redo());
+                current++;
+            } else {
+                int size = list.size();
+                if (size == 0 || r < 6) {
+                    list.add(rnd.nextBoolean() ? new Todo("task " + step)
+                            : new Deadline("d" + step, LocalDateTime.of(2024, 1, 1, 0, 0).plusHours(step % 50), "x"));
+                } else if (r < 8) {
+                    list.deleteAll(rnd.ints(1 + rnd.nextInt(3), 0, size).distinct().sorted().toArray());
+                } else {
+                    list.setDoneAll(rnd.ints(1 + rnd.nextInt(3), 0, size).distinct().sorted().toArray(),
+                            rnd.nextBoolean());
+                }
+                current++;
+                while (states.size() > current) {
+                    states.remove(states.size() - 1);
+                    flags.remove(flags.size() - 1);
+                }
+                states.add(List.copyOf(list.asList()));
+                List<Boolean> done = new ArrayList<>();
+                for (Task t : list.asList()) {
+                    done.add(t.isDone());
+                }
+                flags.add(done);
+            }
+            assertEquals(states.get(current), list.asList());
+            for (int i = 0; i < list.size(); i++) {
+                assertEquals(flags.get(current).get(i), list.get(i).isDone());
+            }
+            if (step % 100 == 0) {
+                assertEquals(scan(list.asList(), "task 1"), list.find("task 1"));
+                List<Task> pending = new ArrayList<>();
+                for (Task t : list.asList()) {
+                    if (t instanceof Deadline && !t.isDone()) {
+                        pending.add(t);
+                    }
+                }
+                assertEquals(pending.size(), list.dueBefore(LocalDateTime.MAX).size());
+            }
+        }
+        while (current > 0) {
+            list.undo();
+            current--;
+        }
+        assertEquals(0, list.size());
+        assertNull(list.undo());
+    }
+
+    @Test
+    void undoHistory_boundedByDepthAndMemory() {
+        TaskList shallow = new TaskList(List.of(), 3, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            shallow.add(new Todo("t" + i));
+        }
+        assertEquals(3, shallow.undoDepth());
+        TaskList.Change c = shallow.undo();
+        assertEquals(TaskList.Change.Effect.REMOVED, c.effect);
+        assertEquals(9, c.positions[0]);
+        shallow.undo();
+        shallow.undo();
+        assertNull(shallow.undo());
+        assertEquals(7, shallow.size());
+        assertEquals(TaskList.Change.Effect.INSERTED, shallow.redo().effect);
+        assertEquals(8, shallow.size());
+
+        TaskList small = new TaskList(List.of(), 1000, 1024);
+        for (int i = 0; i < 100; i++) {
+            small.add(new Todo("t" + i));
+        }
+        assertTrue(small.undoDepth() < 100);
+        assertTrue(small.undoDepth() > 0);
+    }
+}
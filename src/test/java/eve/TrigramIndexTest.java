@@ -0,0 +1,25 @@
+package eve;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    @Test
+    void find_idsPastIntRange_keepListOrder() {
+        TrigramIndex index = new TrigramIndex();
+        Task a = new Todo("read book");
+        Task b = new Todo("return book");
+        index.add(a, Integer.MAX_VALUE);
+        index.add(b, Integer.MAX_VALUE + 1L);
+        assertEquals(List.of(a, b), index.find("book"));
+        index.remove(a);
+        assertEquals(List.of(b), index.find("book"));
+    }
+}
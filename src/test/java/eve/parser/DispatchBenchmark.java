@@ -0,0 +1,76 @@
+package eve.parser;
+
+/**
+ * Measures the cost of dispatching one line of input through
+ * {@link CommandRegistry}, per command keyword, against the previous
+ * regex split into an enum followed by a second split for the arguments.
+ * Handlers do no work, so only tokenizing and lookup are timed.
+ * <p>
+ * Run with {@code gradlew dispatchBenchmark}.
+ */
+public class DispatchBenchmark {
+    private static final String[] INPUTS = {
+        "list", "todo read book", "deadline return book /by 2019-12-02", "event mtg /from 2pm /to 4pm",
+        "mark 12", "find book", "upcoming 5", "bye",
+    };
+    private static final int WARMUP = 5;
+    private static final int RUNS = 5;
+    private static final int OPS = 1_000_000;
+
+    /** The command enum that the keyword was looked up in before the registry. */
+    private enum LegacyCommand {
+        HELP, LIST, TODO, FIND, DEADLINE, EVENT, MARK, UNMARK, DELETE, UPCOMING, DUE, CLASHES, FREE, BYE
+    }
+
+    /** Keeps results reachable so the JIT cannot drop the dispatch. */
+    private static long sink;
+
+    public static void main(String[] args) throws EveException {
+        CommandRegistry registry = new CommandRegistry();
+        for (String input : INPUTS) {
+            registry.register(CommandLine.parse(input).keyword, a -> a);
+        }
+        System.out.printf("%-12s %20s %20s%n", "command", "regex split (ns/op)", "registry (ns/op)");
+        for (String input : INPUTS) {
+            double legacy = measure(() -> {
+                LegacyCommand c = legacyCommand(input);
+                String a = legacyArgs(input);
+                return c.ordinal() + a.length();
+            });
+            double dispatched = measure(() -> registry.dispatch(input).length());
+            System.out.printf("%-12s %20.1f %20.1f%n", CommandLine.parse(input).keyword, legacy, dispatched);
+        }
+    }
+
+    private interface Op {
+        int run() throws EveException;
+    }
+
+    /** Returns the best average time per operation over several runs. */
+    private static double measure(Op op) throws EveException {
+        double best = Double.MAX_VALUE;
+        for (int run = 0; run < WARMUP + RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < OPS; i++) {
+                sink += op.run();
+            }
+            double perOp = (System.nanoTime() - start) / (double) OPS;
+            if (run >= WARMUP) {
+                best = Math.min(best, perOp);
+            }
+        }
+        return best;
+    }
+
+    /** The keyword lookup used before the registry. */
+    private static LegacyCommand legacyCommand(String full) {
+        String head = full.trim().split("\\s+", 2)[0].toLowerCase();
+        return LegacyCommand.valueOf(head.toUpperCase());
+    }
+
+    /** The argument split used before the registry. */
+    private static String legacyArgs(String full) {
+        String[] parts = full.trim().split("\\s+", 2);
+        return parts.length > 1 ? parts[1].trim() : "";
+    }
+}
@@ -8,11 +8,17 @@ import static eve.parser.parser.*;
 public class ParserTest {
 
     @Test
-    void parseCommand_variousTokens_ok() {
-        assertEquals(Command.TODO, parser.parseCommand("todo read"));
-        assertEquals(Command.DEADLINE, parser.parseCommand("deadline x /by 2019-12-02"));
-        assertEquals(Command.EVENT, parser.parseCommand("event m /from a /to b"));
-        assertNull(parser.parseCommand("unknownStuff"));
+    void commandLine_variousTokens_ok() throws EveException {
+        assertEquals("todo", CommandLine.parse("todo read").keyword);
+        assertEquals("read", CommandLine.parse("  TODO   read ").args);
+        assertEquals("deadline", CommandLine.parse("deadline x /by 2019-12-02").keyword);
+        assertEquals("", CommandLine.parse("event").args);
+        assertNull(CommandLine.parse("   "));
+
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("event", args -> args);
+        assertEquals("m /from a /to b", registry.dispatch("event m /from a /to b"));
+        assertNull(registry.dispatch("unknownStuff"));
     }
 
     @Test
@@ -57,4 +63,104 @@ public class ParserTest {
                 () -> parser.parseEvent("x /from 2019-12-02 10:00"));
         assertTrue(noTo.getMessage().startsWith("Oops, I need more info."));
     }
+
+    @Test
+    void parseUpcomingAndDue_goodAndBadInputs() throws EveException {
+        assertEquals(DEFAULT_UPCOMING, parser.parseUpcoming(""));
+        assertEquals(3, parser.parseUpcoming(" 3 "));
+        assertThrows(EveException.class, () -> parser.parseUpcoming("0"));
+        assertThrows(EveException.class, () -> parser.parseUpcoming("three"));
+
+        assertEquals(java.time.LocalDate.of(2019, 12, 2), parser.parseDue("2/12/2019 1800"));
+        EveException bad = assertThrows(EveException.class, () -> parser.parseDue("someday"));
+        assertTrue(bad.getMessage().contains("don't understand that date"));
+        assertThrows(EveException.class, () -> parser.parseDue(""));
+    }
+
+    @Test
+    void parseClashes_goodAndBadInputs() throws EveException {
+        RangeParts r = parser.parseClashes("2019-12-02 1400 /to 2019-12-02 1600");
+        assertEquals(java.time.LocalDateTime.of(2019, 12, 2, 14, 0), r.from);
+        assertEquals(java.time.LocalDateTime.of(2019, 12, 2, 16, 0), r.to);
+
+        EveException missing = assertThrows(EveException.class, () -> parser.parseClashes("2019-12-02"));
+        assertTrue(missing.getMessage().startsWith("Oops, I need more info."));
+        assertThrows(EveException.class, () -> parser.parseClashes("next Mon /to 4pm"));
+        EveException badRange = assertThrows(EveException.class,
+                () -> parser.parseClashes("2019-12-03 /to 2019-12-02"));
+        assertTrue(badRange.getMessage().contains("start is after end"));
+    }
+
+    @Test
+    void commandLine_splitsKeywordAndArgsOnce() {
+        CommandLine line = CommandLine.parse("  DeadLine\treturn  book /by 2019-12-02 \n");
+        assertEquals("deadline", line.keyword);
+        assertEquals("return  book /by 2019-12-02", line.args);
+        assertEquals("", CommandLine.parse("list").args);
+        assertNull(CommandLine.parse(" \t "));
+        assertNull(CommandLine.parse(null));
+        assertEquals("x /by y", parser.args("deadline   x /by y  "));
+    }
+
+    @Test
+    void commandRegistry_dispatchesByKeyword() throws EveException {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("Echo", args -> "echo:" + args);
+        registry.register("fail", args -> {
+            throw new EveException("failed");
+        });
+        assertEquals("echo:a  b", registry.dispatch("  ECHO a  b "));
+        assertEquals("echo:", registry.dispatch("echo"));
+        assertNull(registry.dispatch("unknown"));
+        assertNull(registry.dispatch("   "));
+        assertThrows(EveException.class, () -> registry.dispatch("fail now"));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("echo", args -> ""));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("two words", args -> ""));
+    }
+
+    @Test
+    void parseDeadlineAndEvent_carryParsedTimes() throws EveException {
+        DeadlineParts d = parser.parseDeadline("return book /by 2/12/2019 1800");
+        assertEquals(java.time.LocalDateTime.of(2019, 12, 2, 18, 0), d.whenDT);
+        assertEquals("[D][ ] return book (by: 2019/12/2 18:00)", new eve.tasks.Deadline(d.desc, d.whenDT, d.when).toString());
+        assertNull(parser.parseDeadline("x /by tomorrow").whenDT);
+
+        EventParts e = parser.parseEvent("orient /from 2019-12-02 1400 /to 4pm");
+        assertEquals(java.time.LocalDateTime.of(2019, 12, 2, 14, 0), e.fromDT);
+        assertNull(e.toDT);
+        assertEquals("[E][ ] orient (from: 2019/12/2 14:00 to: 4pm)", new eve.tasks.Event(e.desc, e.fromDT, e.from, e.toDT, e.to).toString());
+    }
+
+    @Test
+    void parseTaskIndexes_listsAndRanges() throws EveException {
+        assertArrayEquals(new int[] {2}, parser.parseTaskIndexes("3", "delete", 5));
+        assertArrayEquals(new int[] {0, 1, 2, 4}, parser.parseTaskIndexes("5, 1-3,2", "mark", 5));
+        assertArrayEquals(new int[] {2, 3}, parser.parseTaskIndexes("3 - 4", "unmark", 5));
+
+        EveException outOfRange = assertThrows(EveException.class,
+                () -> parser.parseTaskIndexes("1-99999999999999999999", "delete", 5));
+        assertEquals("Please provide a valid task number (1-5).", outOfRange.getMessage());
+        assertThrows(EveException.class, () -> parser.parseTaskIndexes("0", "delete", 5));
+        assertThrows(EveException.class, () -> parser.parseTaskIndexes("4-2", "delete", 5));
+        assertThrows(EveException.class, () -> parser.parseTaskIndexes("1,,2", "delete", 5));
+        assertThrows(EveException.class, () -> parser.parseTaskIndexes("1-", "delete", 5));
+        assertThrows(EveException.class, () -> parser.parseTaskIndexes("two", "delete", 5));
+        assertThrows(EveException.class, () -> parser.parseTaskIndexes(" ", "delete", 5));
+    }
+
+    @Test
+    void parseList_pageAndSize() throws EveException {
+        assertNull(parser.parseList(""));
+        parser.PageParts p = parser.parseList("page 3");
+        assertEquals(3, p.page);
+        assertEquals(parser.DEFAULT_PAGE_SIZE, p.size);
+        p = parser.parseList("PAGE 2  size 50");
+        assertEquals(2, p.page);
+        assertEquals(50, p.size);
+
+        assertThrows(EveException.class, () -> parser.parseList("page 0"));
+        assertThrows(EveException.class, () -> parser.parseList("page 1 size"));
+        assertThrows(EveException.class, () -> parser.parseList("page 1 limit 5"));
+        assertThrows(EveException.class, () -> parser.parseList("all"));
+    }
 }
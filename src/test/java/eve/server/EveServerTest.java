@@ -0,0 +1,68 @@
+package eve.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EveServerTest {
+
+    @TempDir
+    Path dir;
+
+    private EveServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new EveServer(new TenantManager(dir), 0, 2);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void command_post_repliesOk() throws Exception {
+        HttpResponse<String> added = send("POST", "/command", "todo read book");
+        assertEquals(200, added.statusCode());
+        assertTrue(added.body().contains("read book"));
+        HttpResponse<String> other = send("POST", "/tenants/bob/command", "list");
+        assertEquals(200, other.statusCode());
+        assertFalse(other.body().contains("read book"));
+    }
+
+    @Test
+    void command_batchOrBye_isRefused() throws Exception {
+        assertEquals(400, send("POST", "/command", "batch begin").statusCode());
+        assertEquals(400, send("POST", "/tenants/bob/command", "bye").statusCode());
+    }
+
+    @Test
+    void command_badPathMethodOrSize_isRejected() throws Exception {
+        assertEquals(404, send("POST", "/tenants/../command", "list").statusCode());
+        assertEquals(404, send("POST", "/tenants/Bob/command", "list").statusCode());
+        HttpResponse<String> get = send("GET", "/command", null);
+        assertEquals(405, get.statusCode());
+        assertEquals("POST", get.headers().firstValue("Allow").orElse(null));
+        assertEquals(413, send("POST", "/command", "todo " + "x".repeat(64 * 1024)).statusCode());
+    }
+}
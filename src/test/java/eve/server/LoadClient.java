@@ -0,0 +1,101 @@
+package eve.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eve.util.LatencyHistogram;
+
+/**
+ * Sends a mix of commands to a running {@link EveServer} from several
+ * threads at once and reports the throughput and the latency percentiles
+ * seen by the clients.
+ * <p>
+ * Each client thread repeatedly sends one of: {@code todo} (20%),
+ * {@code find} (40%), {@code list page} (30%) or {@code mark} (10%). The
+ * first tenth of the requests warm the server up and are not counted. The
+ * todos it adds stay in the server's data file.
+ * <p>
+ * Start a server with {@code gradlew run --args="--serve 8080"}, then run
+ * {@code gradlew loadTest -Pport=8080 [-Pclients=16] [-Prequests=20000]}.
+ */
+public class LoadClient {
+    private static final String[] WORDS = {"read", "book", "report", "meeting", "gym", "groceries", "draft", "bug"};
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: LoadClient <port> [clients] [requests]");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        URI uri = URI.create("http://localhost:" + port + "/command");
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        int warmup = requests / 10;
+        run(http, uri, clients, warmup, new LatencyHistogram(), new AtomicLong());
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+        long start = System.nanoTime();
+        run(http, uri, clients, requests, latency, failures);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d clients, %d requests in %.2f s: %.0f requests/s, %d failed%n",
+                clients, requests, seconds, requests / seconds, failures.get());
+        System.out.printf("latency (ms): p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                latency.percentile(50) / 1e6, latency.percentile(90) / 1e6, latency.percentile(99) / 1e6,
+                latency.percentile(99.9) / 1e6, latency.max() / 1e6);
+    }
+
+    /** Sends {@code requests} commands split across {@code clients} threads and waits for them all. */
+    private static void run(HttpClient http, URI uri, int clients, int requests, LatencyHistogram latency,
+            AtomicLong failures) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int share = requests / clients + (c < requests % clients ? 1 : 0);
+            SplittableRandom rnd = new SplittableRandom(c);
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < share; i++) {
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .POST(HttpRequest.BodyPublishers.ofString(command(rnd), StandardCharsets.UTF_8))
+                            .build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    latency.record(System.nanoTime() - sent);
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    private static String command(SplittableRandom rnd) {
+        int kind = rnd.nextInt(10);
+        if (kind < 2) {
+            return "todo " + WORDS[rnd.nextInt(WORDS.length)] + " " + WORDS[rnd.nextInt(WORDS.length)];
+        } else if (kind < 6) {
+            return "find " + WORDS[rnd.nextInt(WORDS.length)];
+        } else if (kind < 9) {
+            return "list page " + (1 + rnd.nextInt(5));
+        }
+        return "mark " + (1 + rnd.nextInt(20));
+    }
+}
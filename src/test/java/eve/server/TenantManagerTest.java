@@ -0,0 +1,65 @@
+package eve.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TenantManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tenants_keepSeparateFiles_survivingEviction() {
+        AtomicLong now = new AtomicLong();
+        TenantManager m = new TenantManager(dir, 100, Long.MAX_VALUE, now::get);
+        m.getResponse("alice", "todo read book");
+        m.getResponse("bob", "todo buy milk");
+        assertFalse(m.getResponse("bob", "list").contains("read book"));
+        assertEquals(2, m.loaded());
+
+        now.set(150);
+        m.getResponse("bob", "mark 1");
+        assertEquals(1, m.evictIdle());
+        assertEquals(1, m.loaded());
+        assertTrue(Files.exists(dir.resolve("alice.txt")) || Files.exists(dir.resolve("alice.txt.journal")));
+
+        assertTrue(m.getResponse("alice", "list").contains("read book"));
+        assertEquals(3, m.loads());
+        m.shutdown();
+        assertEquals(0, m.loaded());
+        assertEquals(0, m.bytes());
+        assertTrue(new TenantManager(dir).getResponse("bob", "list").contains("[X] buy milk"));
+        assertThrows(IllegalArgumentException.class, () -> m.getResponse("../eve", "list"));
+    }
+
+    @Test
+    void memoryBudget_evictsLeastRecentlyUsed() {
+        AtomicLong now = new AtomicLong();
+        TenantManager m = new TenantManager(dir, Long.MAX_VALUE, 3 * TenantManager.TENANT_BYTES, now::get);
+        for (String t : new String[] {"a", "b", "c"}) {
+            now.incrementAndGet();
+            m.getResponse(t, "list");
+        }
+        now.incrementAndGet();
+        m.getResponse("a", "list");
+        now.incrementAndGet();
+        m.getResponse("d", "list");
+
+        assertEquals(3, m.loaded());
+        assertEquals(1, m.evictions());
+        long loads = m.loads();
+        m.getResponse("a", "list");
+        m.getResponse("c", "list");
+        assertEquals(loads, m.loads());
+        m.getResponse("b", "list");
+        assertEquals(loads + 1, m.loads());
+        assertTrue(m.bytes() <= 3 * TenantManager.TENANT_BYTES);
+        m.shutdown();
+    }
+}
@@ -0,0 +1,57 @@
+package eve.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import eve.tasks.Task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void load_smallChunks_matchesLineByLineParse() throws IOException {
+        StringBuilder sb = new StringBuilder("# seq 7\n");
+        for (int i = 0; i < 500; i++) {
+            sb.append("T | ").append(i % 2).append(" | café 日本 ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+            sb.append("D | 0 | return book ").append(i).append(" | 2019-12-02T18:00\n");
+            sb.append("E | 1 | mtg | next Mon 2pm | 4pm\n");
+            sb.append(i % 50 == 0 ? "corrupted line\n\n" : "");
+        }
+        sb.append("T | 0 | no trailing newline");
+        Path file = dir.resolve("eve.txt");
+        Files.writeString(file, sb.toString());
+
+        List<String> expected = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            Task t = Storage.parseLine(line);
+            if (t != null) {
+                expected.add(t.toString());
+            }
+        }
+        for (long chunk : new long[] {1, 7, 100, 4096, 1 << 20}) {
+            List<String> actual = new ArrayList<>();
+            for (Task t : new ParallelLoader(Storage::parseLine, chunk).load(file)) {
+                actual.add(t.toString());
+            }
+            assertEquals(expected, actual, "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    void load_malformedUtf8_throws() throws IOException {
+        Path file = dir.resolve("eve.txt");
+        Files.write(file, "T | 0 | ok\nT | 0 | ÿ\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertThrows(IOException.class, () -> new ParallelLoader(Storage::parseLine, 4).load(file));
+    }
+}
@@ -0,0 +1,114 @@
+package eve.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import eve.tasks.Deadline;
+import eve.tasks.Event;
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+/**
+ * Compares the latency of a full save through the atomic snapshot path
+ * (temp file, force, rename) against the previous in-place rewrite
+ * ({@code TRUNCATE_EXISTING}, no force) for 10k, 100k and 1M tasks.
+ * <p>
+ * Run with {@code gradlew storageBenchmark}.
+ */
+public class SnapshotBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int WARMUP = 3;
+    private static final int RUNS = 7;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("eve-bench");
+        System.out.printf("%10s %18s %18s%n", "tasks", "in-place (ms)", "atomic (ms)");
+        for (int n : SIZES) {
+            List<Task> tasks = generate(n);
+            Path legacy = dir.resolve("legacy-" + n + ".txt");
+            Path atomicFile = dir.resolve("atomic-" + n + ".txt");
+            Storage storage = new Storage(atomicFile.toString());
+
+            double inPlace = median(() -> saveInPlace(legacy, tasks));
+            double atomic = median(() -> {
+                storage.save(tasks);
+                storage.flush();
+            });
+            storage.close();
+            System.out.printf("%10d %18.2f %18.2f%n", n, inPlace, atomic);
+        }
+    }
+
+    /** The save path used before snapshots were published atomically. */
+    private static void saveInPlace(Path file, List<Task> tasks) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(
+                file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Task t : tasks) {
+                bw.write(serialize(t));
+                bw.newLine();
+            }
+        }
+    }
+
+    private static String serialize(Task t) {
+        int done = t.toString().contains("[X]") ? 1 : 0;
+        if (t instanceof Deadline) {
+            Deadline d = (Deadline) t;
+            return String.format("D | %d | %s | %s", done, d.getDescription(), d.getByToken());
+        } else if (t instanceof Event) {
+            Event e = (Event) t;
+            return String.format("E | %d | %s | %s | %s",
+                    done, e.getDescription(), e.getFromToken(), e.getToToken());
+        }
+        return String.format("T | %d | %s", done, t.getDescription());
+    }
+
+    private static List<Task> generate(int n) {
+        List<Task> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            switch (i % 3) {
+                case 0:
+                    tasks.add(new Todo("read chapter " + i));
+                    break;
+                case 1:
+                    tasks.add(new Deadline("submit report " + i, "2019-12-02T18:00"));
+                    break;
+                default:
+                    tasks.add(new Event("meeting " + i, "2019-12-02T14:00", "2019-12-02T16:00"));
+                    break;
+            }
+            if (i % 4 == 0) {
+                tasks.get(i).markAsDone();
+            }
+        }
+        return tasks;
+    }
+
+    private interface Run {
+        void run() throws IOException;
+    }
+
+    /** Returns the median wall time of {@link #RUNS} runs after {@link #WARMUP} warm-up runs. */
+    private static double median(Run r) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            r.run();
+        }
+        double[] ms = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            r.run();
+            ms[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(ms);
+        return ms[RUNS / 2];
+    }
+}
@@ -0,0 +1,278 @@
+package eve.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import eve.tasks.Deadline;
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void journal_replaysMutationsOnTopOfSnapshot() {
+        String path = dir.resolve("eve.txt").toString();
+        Storage s = new Storage(path, Storage.DEFAULT_JOURNAL_LIMIT);
+        List<Task> tasks = new ArrayList<>(s.load());
+
+        tasks.add(new Todo("read book"));
+        s.saveAdded(tasks.get(0), tasks);
+        tasks.add(new Deadline("return book", "2019-12-02"));
+        s.saveAdded(tasks.get(1), tasks);
+        tasks.get(1).markAsDone();
+        s.saveDone(1, true, tasks);
+        tasks.remove(0);
+        s.saveDeleted(0, tasks);
+        s.close();
+
+        assertFalse(Files.exists(dir.resolve("eve.txt")));
+        List<Task> loaded = new Storage(path, Storage.DEFAULT_JOURNAL_LIMIT).load();
+        assertEquals(1, loaded.size());
+        assertEquals("[D][X] return book (by: 2019/12/2)", loaded.get(0).toString());
+    }
+
+    @Test
+    void journal_insertRecord_putsTaskBackInPlace() {
+        String path = dir.resolve("eve.txt").toString();
+        Storage s = new Storage(path, Storage.DEFAULT_JOURNAL_LIMIT);
+        List<Task> tasks = new ArrayList<>(s.load());
+        for (String d : new String[] {"a", "b", "c"}) {
+            tasks.add(new Todo(d));
+            s.saveAdded(tasks.get(tasks.size() - 1), tasks);
+        }
+        Task b = tasks.remove(1);
+        s.saveDeleted(1, tasks);
+        tasks.add(1, b);
+        s.saveInserted(1, b, tasks);
+        s.close();
+
+        List<Task> loaded = new Storage(path, Storage.DEFAULT_JOURNAL_LIMIT).load();
+        assertEquals(3, loaded.size());
+        assertEquals("[T][ ] b", loaded.get(1).toString());
+        assertEquals("[T][ ] c", loaded.get(2).toString());
+    }
+
+    @Test
+    void journal_compactsPastLimit_andKeepsLaterRecords() throws Exception {
+        String path = dir.resolve("eve.txt").toString();
+        Storage s = new Storage(path, 64);
+        List<Task> tasks = new ArrayList<>(s.load());
+        for (int i = 0; i < 20; i++) {
+            tasks.add(new Todo("task " + i));
+            s.saveAdded(tasks.get(i), tasks);
+        }
+        s.close();
+
+        assertTrue(Files.exists(dir.resolve("eve.txt")));
+        assertFalse(Files.readString(dir.resolve("eve.txt.journal")).contains("task 0\n"));
+        List<Task> loaded = new Storage(path, 64).load();
+        assertEquals(20, loaded.size());
+        assertEquals("[T][ ] task 19", loaded.get(19).toString());
+    }
+
+    @Test
+    void journal_tornLastRecord_isSkipped() throws Exception {
+        String path = dir.resolve("eve.txt").toString();
+        Files.writeString(dir.resolve("eve.txt.journal"), "1 | A | T | 0 | a\n2 | A | T | 0");
+        Storage s = new Storage(path, Storage.DEFAULT_JOURNAL_LIMIT);
+        List<Task> tasks = new ArrayList<>(s.load());
+        assertEquals(1, tasks.size());
+
+        tasks.add(new Todo("b"));
+        s.saveAdded(tasks.get(1), tasks);
+        s.close();
+        assertEquals(2, new Storage(path, Storage.DEFAULT_JOURNAL_LIMIT).load().size());
+    }
+
+    @Test
+    void save_burstOfSaves_lastOneWinsAfterFlush() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Storage s = new Storage(file.toString(), 0, FsyncPolicy.ON_EXIT);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Todo("task " + i));
+            s.save(tasks);
+        }
+        s.flush();
+        assertEquals(100, Files.readAllLines(file).size());
+        assertEquals("T | 0 | task 99", Files.readAllLines(file).get(99));
+        s.close();
+    }
+
+    @Test
+    void fsyncPolicy_parse_knownForms() {
+        assertSame(FsyncPolicy.ALWAYS, FsyncPolicy.parse("always"));
+        assertSame(FsyncPolicy.ON_EXIT, FsyncPolicy.parse("On-Exit"));
+        assertEquals(250, FsyncPolicy.parse("every 250ms").intervalMillis());
+        assertEquals(250, FsyncPolicy.parse("250").intervalMillis());
+        assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.parse("sometimes"));
+    }
+
+    @Test
+    void save_keepsPreviousGeneration_andLoadFallsBackToIt() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Storage s = new Storage(file.toString());
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("first"));
+        s.save(tasks);
+        s.flush();
+        tasks.add(new Todo("second"));
+        s.save(tasks);
+        s.close();
+        assertEquals(1, Files.readAllLines(dir.resolve("eve.txt.bak")).size());
+
+        // unreadable data file -> previous generation
+        Files.write(file, new byte[] {(byte) 0xC3, (byte) 0x28, '\n'});
+        assertEquals(1, new Storage(file.toString()).load().size());
+
+        // crash between the two renames -> previous generation
+        Files.delete(file);
+        assertEquals(1, new Storage(file.toString()).load().size());
+    }
+
+    @Test
+    void load_journalCoversPreviousGeneration_fallsBackToIt() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Files.writeString(dir.resolve("eve.txt.bak"), "# seq 2\nT | 0 | a\nT | 0 | b\n");
+        Files.writeString(dir.resolve("eve.txt.journal"), "# seq 2\n3 | A | T | 0 | c\n4 | M | 0\n");
+        Files.write(file, new byte[] {(byte) 0xC3, (byte) 0x28, '\n'});
+
+        List<Task> loaded = new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT).load();
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    @Test
+    void load_previousGenerationOlderThanJournal_isNotUsed() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Storage s = new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT);
+        List<Task> tasks = new ArrayList<>(s.load());
+        tasks.add(new Todo("a"));
+        tasks.add(new Todo("b"));
+        s.save(tasks);
+        s.flush();
+        tasks.clear();
+        s.save(tasks);
+        s.close();
+
+        Files.write(file, new byte[] {(byte) 0xC3, (byte) 0x28, '\n'});
+        assertEquals(0, new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT).load().size());
+
+        Files.writeString(dir.resolve("eve.txt.journal"), "# seq 1\n3 | A | T | 0 | c\n");
+        assertEquals(0, new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT).load().size());
+    }
+
+    @Test
+    void convert_binaryAndBack_roundTripsEveryTask() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Files.writeString(file, String.join("\n",
+                "T | 1 | café 日本",
+                "D | 0 | return book | 1020-12-22T00:00",
+                "D | 1 | sth | tomorrow",
+                "D | 0 | precise | 2019-12-02T18:00:30",
+                "E | 0 | mtg | 2019-12-02T14:00 | 2019-12-02T16:00",
+                "E | 1 | orient | next Mon 2pm | 2019-12-02T16:00",
+                ""));
+        List<String> expected = new ArrayList<>();
+        for (Task t : new Storage(file.toString()).load()) {
+            expected.add(t.toString());
+        }
+
+        Storage s = new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT);
+        assertEquals(6, s.convert(Storage.Format.BINARY));
+        s.close();
+        assertEquals(Storage.Format.BINARY, Storage.detectFormat(file));
+        assertTrue(Files.size(file) < Files.size(dir.resolve("eve.txt.bak")));
+
+        Storage reloaded = new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT);
+        List<String> actual = new ArrayList<>();
+        for (Task t : reloaded.load()) {
+            actual.add(t.toString());
+        }
+        assertEquals(expected, actual);
+        assertEquals(Storage.Format.BINARY, reloaded.getFormat());
+
+        reloaded.convert(Storage.Format.TEXT);
+        reloaded.close();
+        assertEquals(Storage.Format.TEXT, Storage.detectFormat(file));
+        assertEquals(6, new Storage(file.toString()).load().size());
+    }
+
+    @Test
+    void save_binaryTaskLargerThanBuffer_roundTrips() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Storage s = new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT);
+        s.convert(Storage.Format.BINARY);
+        String big = "x".repeat(200_000);
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("before"));
+        tasks.add(new Todo(big));
+        tasks.add(new Todo("after"));
+        s.save(tasks);
+        s.close();
+
+        List<Task> loaded = new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT).load();
+        assertEquals(3, loaded.size());
+        assertEquals("before", loaded.get(0).getDescription());
+        assertEquals(big, loaded.get(1).getDescription());
+        assertEquals("after", loaded.get(2).getDescription());
+    }
+
+    @Test
+    void flush_writerFailsUnexpectedly_reportsInsteadOfBlocking() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Storage s = new Storage(file.toString());
+        List<Task> broken = new ArrayList<>();
+        broken.add(new Todo("a"));
+        broken.add(null);
+        s.save(broken);
+        assertFalse(s.flush());
+
+        s.save(List.of(new Todo("a"), new Todo("b")));
+        assertTrue(s.flush());
+        s.close();
+        assertEquals(2, new Storage(file.toString()).load().size());
+    }
+
+    @Test
+    void journal_failedAppend_isWrittenAgainWithoutGap() throws Exception {
+        Path file = dir.resolve("eve.txt");
+        Storage s = new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT);
+        List<Task> tasks = new ArrayList<>(s.load());
+        Path journal = dir.resolve("eve.txt.journal");
+        Files.createDirectory(journal);
+        tasks.add(new Todo("a"));
+        s.saveAdded(tasks.get(0), tasks);
+        assertFalse(s.flush());
+
+        Files.delete(journal);
+        tasks.add(new Todo("b"));
+        s.saveAdded(tasks.get(1), tasks);
+        tasks.get(1).markAsDone();
+        s.saveDone(1, true, tasks);
+        tasks.remove(0);
+        s.saveDeleted(0, tasks);
+        assertTrue(s.flush());
+        s.close();
+
+        List<String> expected = new ArrayList<>();
+        for (Task t : tasks) {
+            expected.add(t.toString());
+        }
+        List<String> actual = new ArrayList<>();
+        for (Task t : new Storage(file.toString(), Storage.DEFAULT_JOURNAL_LIMIT).load()) {
+            actual.add(t.toString());
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,117 @@
+package eve.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import eve.tasks.Deadline;
+import eve.tasks.Event;
+import eve.tasks.Task;
+import eve.tasks.Todo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskCodecTest {
+
+    private static String text(Task t) {
+        CharBuffer buf = CharBuffer.allocate(256);
+        TaskCodecs.encode(t, buf);
+        buf.flip();
+        return buf.toString();
+    }
+
+    @Test
+    void encodeText_matchesStorageFormat() {
+        Task todo = new Todo("read book");
+        todo.markAsDone();
+        assertEquals("T | 1 | read book", text(todo));
+        assertEquals("D | 0 | return book | 2019-12-02T00:00", text(new Deadline("return book", "2019-12-02")));
+        assertEquals("D | 0 | sth | tomorrow", text(new Deadline("sth", "tomorrow")));
+        assertEquals("D | 0 | old | 0999-01-05T07:05:09.120",
+                text(new Deadline("old", "0999-01-05T07:05:09.12")));
+        assertEquals("E | 0 | mtg | 2019-12-02T14:00 | 4pm", text(new Event("mtg", "2019-12-02 1400", "4pm")));
+    }
+
+    @Test
+    void decodeText_roundTripsAndRejectsCorruptedLines() {
+        for (String line : new String[] {
+            "T | 1 | read book",
+            "D | 0 | return book | 1020-12-22T00:00",
+            "D | 1 | sth | tomorrow",
+            "E | 0 | mtg | 2019-12-02T14:00 | 2019-12-02T16:00",
+        }) {
+            assertEquals(line, text(TaskCodecs.decode(line)));
+        }
+        assertEquals("E | 0 | x |  | ", text(TaskCodecs.decode("E|0|x")));
+        assertNull(TaskCodecs.decode("D | 0 | no date |  "));
+        assertNull(TaskCodecs.decode("X | 0 | unknown"));
+        assertNull(TaskCodecs.decode("# seq 12"));
+        assertNull(TaskCodecs.decode(""));
+    }
+
+    @Test
+    void binary_roundTrips() {
+        List<Task> tasks = sample(30);
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        for (Task t : tasks) {
+            TaskCodecs.encode(t, buf);
+        }
+        buf.flip();
+        for (Task t : tasks) {
+            assertEquals(t.toString(), TaskCodecs.decode(buf).toString());
+        }
+        assertFalse(buf.hasRemaining());
+    }
+
+    @Test
+    void encode_reusedBuffers_allocateNothingPerTask() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+        List<Task> tasks = sample(10_000);
+        CharBuffer chars = CharBuffer.allocate(256);
+        ByteBuffer bytes = ByteBuffer.allocate(256);
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            for (Task t : tasks) {
+                chars.clear();
+                TaskCodecs.encode(t, chars);
+                bytes.clear();
+                TaskCodecs.encode(t, bytes);
+            }
+            long allocated = threads.getThreadAllocatedBytes(id) - before;
+            if (round == 2) {
+                assertTrue(allocated < 64 * 1024,
+                        "encoding 10k tasks allocated " + allocated + " bytes");
+            }
+        }
+    }
+
+    private static List<Task> sample(int n) {
+        List<Task> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            switch (i % 3) {
+                case 0:
+                    tasks.add(new Todo("read chapter " + i + " café"));
+                    break;
+                case 1:
+                    tasks.add(new Deadline("submit " + i, i % 2 == 0 ? "2019-12-02T18:00" : "tomorrow"));
+                    break;
+                default:
+                    tasks.add(new Event("meeting " + i, "2019-12-02T14:00", "2019-12-02T16:00:30"));
+                    break;
+            }
+            if (i % 4 == 0) {
+                tasks.get(i).markAsDone();
+            }
+        }
+        return tasks;
+    }
+}
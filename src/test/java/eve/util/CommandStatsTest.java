@@ -0,0 +1,50 @@
+package eve.util;
+
+import org.junit.jupiter.api.Test;
+
+import eve.util.CommandStats.Phase;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandStatsTest {
+
+    @Test
+    void timer_stop_recordsOnlyPhasesReached() {
+        CommandStats stats = new CommandStats();
+        CommandStats.Timer timer = stats.timer();
+        timer.start();
+        timer.parsed("x");
+        timer.executed("y");
+        timer.stop("list");
+        assertEquals(1, stats.total("list").count());
+        assertEquals(1, stats.phase("list", Phase.PARSE).count());
+        assertEquals(1, stats.phase("list", Phase.EXECUTE).count());
+        assertEquals(0, stats.phase("list", Phase.PERSIST).count());
+        assertEquals(1, stats.phase("list", Phase.RENDER).count());
+
+        timer.start();
+        timer.stop(null);
+        assertEquals(1, stats.total("list").count());
+    }
+
+    @Test
+    void timer_failed_closesThePhaseThatFailed() {
+        CommandStats stats = new CommandStats();
+        CommandStats.Timer timer = stats.timer();
+        timer.start();
+        timer.failed();
+        timer.stop("todo");
+        assertEquals(1, stats.phase("todo", Phase.PARSE).count());
+        assertEquals(0, stats.phase("todo", Phase.EXECUTE).count());
+        assertEquals(1, stats.phase("todo", Phase.RENDER).count());
+
+        timer.start();
+        timer.parsed("x");
+        timer.failed();
+        timer.stop("mark");
+        assertEquals(1, stats.phase("mark", Phase.PARSE).count());
+        assertEquals(1, stats.phase("mark", Phase.EXECUTE).count());
+        assertEquals(0, stats.phase("mark", Phase.PERSIST).count());
+        assertEquals(1, stats.phase("mark", Phase.RENDER).count());
+    }
+}
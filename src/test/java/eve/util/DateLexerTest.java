@@ -0,0 +1,77 @@
+package eve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DateLexerTest {
+
+    private static void assertSameAsFormatters(String s) {
+        assertEquals(DateTimeUtil.parseWithFormatters(s.trim()), DateTimeUtil.parseUncached(s.trim()), s);
+    }
+
+    @Test
+    void lex_commonShapes_parsedWithoutFormatters() {
+        String[] inputs = {
+            "2019-12-02", "2019-12-02T18:00", "2019-12-02t18:00:30", "2019-12-02T18:00:30.5",
+            "2019-12-02 1800", "2019-12-02 18:00", "2/12/2019", "2/12/2019 1800", "02-12-2019 18:00",
+            "2 12 2019", "12 2 2019 12:00", "29 2 2020",
+        };
+        for (String s : inputs) {
+            assertNotSame(DateLexer.UNSURE, DateLexer.lex(s), s);
+            assertNotNull(DateLexer.lex(s), s);
+            assertSameAsFormatters(s);
+        }
+        for (String s : new String[] {"next monday", "tomorrow", "4pm", "", "12", "1400", "2019-12"}) {
+            assertNull(DateLexer.lex(s), s);
+            assertSameAsFormatters(s);
+        }
+    }
+
+    @Test
+    void parseDateTime_edgeValues_matchFormatters() {
+        String[] times = {"", " 0000", " 2359", " 2400", " 1260", " 23:59", " 24:00", " 7:00", " 0700 "};
+        for (int year : new int[] {1900, 2000, 2019, 2020, 0}) {
+            String y = String.format("%04d", year);
+            for (int m = 0; m <= 13; m++) {
+                for (int d = 0; d <= 32; d++) {
+                    for (String t : times) {
+                        assertSameAsFormatters(String.format("%s-%02d-%02d", y, m, d) + t);
+                        assertSameAsFormatters(d + "/" + m + "/" + y + t);
+                        assertSameAsFormatters(d + "-" + m + "-" + y + t);
+                        assertSameAsFormatters(d + " " + m + " " + y + t);
+                    }
+                    assertSameAsFormatters(String.format("%s-%02d-%02dT12:30:59.123", y, m, d));
+                }
+            }
+        }
+    }
+
+    @Test
+    void parseDateTime_randomInput_matchesFormatters() {
+        Random rnd = new Random(42);
+        String seps = "-/ :Tt.+x";
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (rnd.nextInt(10) == 0) {
+                sb.append(' ');
+            }
+            int parts = 1 + rnd.nextInt(7);
+            for (int p = 0; p < parts; p++) {
+                int digits = 1 + rnd.nextInt(rnd.nextInt(4) == 0 ? 11 : 4);
+                for (int k = 0; k < digits; k++) {
+                    sb.append((char) ('0' + rnd.nextInt(p < 3 ? 10 : 3)));
+                }
+                if (p + 1 < parts || rnd.nextInt(20) == 0) {
+                    sb.append(seps.charAt(rnd.nextInt(rnd.nextInt(3) == 0 ? seps.length() : 3)));
+                    if (rnd.nextInt(30) == 0) {
+                        sb.append(' ');
+                    }
+                }
+            }
+            assertSameAsFormatters(sb.toString());
+        }
+    }
+}
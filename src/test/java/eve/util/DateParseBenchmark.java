@@ -0,0 +1,57 @@
+package eve.util;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Compares probing every formatter in turn against the single-pass lexer,
+ * with and without the parse cache, for well-formed dates and for free text
+ * that matches no format.
+ * <p>
+ * Run with {@code gradlew dateParseBenchmark}.
+ */
+public class DateParseBenchmark {
+    private static final String[] DATES = {
+        "2019-12-02", "2019-12-02T18:00", "2/12/2019 1800", "12 2 2019 12:00", "2-12-2019",
+    };
+    private static final String[] FREE_TEXT = {
+        "next monday", "tomorrow", "4pm", "end of the month", "Sunday 2pm",
+    };
+    private static final int WARMUP = 5;
+    private static final int RUNS = 5;
+    private static final int OPS = 200_000;
+
+    /** Keeps results reachable so the JIT cannot drop the parsing. */
+    private static long sink;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %20s %20s %20s%n", "input", "formatters (ns/op)", "lexer (ns/op)",
+                "cached (ns/op)");
+        for (String[] inputs : new String[][] {DATES, FREE_TEXT}) {
+            double formatters = measure(inputs, DateTimeUtil::parseWithFormatters);
+            double lexer = measure(inputs, DateTimeUtil::parseUncached);
+            double cached = measure(inputs, DateTimeUtil::parseDateTime);
+            System.out.printf("%-10s %20.1f %20.1f %20.1f%n", inputs == DATES ? "dates" : "free text",
+                    formatters, lexer, cached);
+        }
+        System.out.println("parse cache: " + DateTimeUtil.parseCache());
+    }
+
+    /** Returns the best average time per parse over several runs. */
+    private static double measure(String[] inputs, Function<String, Optional<LocalDateTime>> parse) {
+        double best = Double.MAX_VALUE;
+        for (int run = 0; run < WARMUP + RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < OPS; i++) {
+                Optional<LocalDateTime> r = parse.apply(inputs[i % inputs.length]);
+                sink += r.isPresent() ? r.get().getMinute() : 1;
+            }
+            double perOp = (System.nanoTime() - start) / (double) OPS;
+            if (run >= WARMUP) {
+                best = Math.min(best, perOp);
+            }
+        }
+        return best;
+    }
+}
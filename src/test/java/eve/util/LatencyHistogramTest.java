@@ -0,0 +1,64 @@
+package eve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void percentile_randomValues_withinBucketError() {
+        LatencyHistogram h = new LatencyHistogram();
+        SplittableRandom rnd = new SplittableRandom(7);
+        long[] values = new long[20_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(rnd.nextDouble() * 20);
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, h.count());
+        assertEquals(values[values.length - 1], h.max());
+        for (double p : new double[] {1, 50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            long estimate = h.percentile(p);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 8 + 1,
+                    "p" + p + ": exact " + exact + ", estimate " + estimate);
+        }
+    }
+
+    @Test
+    void upperBound_matchesBucketOf() {
+        for (long v = 0; v < 1 << 16; v++) {
+            int b = LatencyHistogram.bucketOf(v);
+            assertTrue(v <= LatencyHistogram.upperBound(b));
+            assertTrue(b == 0 || v > LatencyHistogram.upperBound(b - 1));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(0, new LatencyHistogram().percentile(50));
+    }
+
+    @Test
+    void record_concurrentThreads_noCountsLost() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    h.record(i % 1000);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200_000, h.count());
+        assertEquals(999, h.max());
+    }
+}
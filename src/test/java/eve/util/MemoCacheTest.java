@@ -0,0 +1,48 @@
+package eve.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoCacheTest {
+
+    @Test
+    void get_countsHitsAndMisses_evictsLeastRecentlyUsed() {
+        MemoCache<String, Integer> cache = new MemoCache<>(2);
+        List<String> computed = new ArrayList<>();
+        assertEquals(1, (int) cache.get("a", k -> {
+            computed.add(k);
+            return 1;
+        }));
+        cache.get("b", k -> {
+            computed.add(k);
+            return 2;
+        });
+        assertEquals(1, (int) cache.get("a", k -> -1));
+        cache.get("c", k -> {
+            computed.add(k);
+            return 3;
+        });
+        assertEquals(-2, (int) cache.get("b", k -> -2));
+
+        assertEquals(List.of("a", "b", "c"), computed);
+        assertEquals(1, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(2, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new MemoCache<String, String>(0));
+    }
+
+    @Test
+    void parseDateTime_repeatedInput_servedFromCache() {
+        MemoCache<String, Optional<java.time.LocalDateTime>> cache = DateTimeUtil.parseCache();
+        DateTimeUtil.parseDateTime("  someday soon ");
+        long hits = cache.hits();
+        assertTrue(DateTimeUtil.parseDateTime("someday soon").isEmpty());
+        assertEquals(hits + 1, cache.hits());
+        assertEquals("2019/12/2 18:00", DateTimeUtil.pretty(DateTimeUtil.parseDateTime("2/12/2019 1800").get()));
+    }
+}